@@ -1,15 +1,22 @@
 package net.sistr.actionarms;
 
 import com.mojang.logging.LogUtils;
+import dev.architectury.event.events.common.PlayerEvent;
 import dev.architectury.event.events.common.TickEvent;
+import dev.architectury.registry.ReloadListenerRegistry;
 import me.shedaniel.autoconfig.AutoConfig;
 import me.shedaniel.autoconfig.ConfigHolder;
 import me.shedaniel.autoconfig.serializer.Toml4jConfigSerializer;
+import net.minecraft.resource.ResourceType;
 import net.sistr.actionarms.config.AAConfig;
 import net.sistr.actionarms.entity.util.HasKeyInputManager;
 import net.sistr.actionarms.hud.ServerHudManager;
 import net.sistr.actionarms.item.ItemUniqueManager;
+import net.sistr.actionarms.item.component.ComponentEvents;
+import net.sistr.actionarms.item.data.AADataLoader;
+import net.sistr.actionarms.network.DataSyncPacket;
 import net.sistr.actionarms.network.Networking;
+import net.sistr.actionarms.network.ServerReplicationManager;
 import net.sistr.actionarms.setup.Registration;
 import org.slf4j.Logger;
 
@@ -20,6 +27,7 @@ public class ActionArms {
 
     public static void init() {
         Networking.init();
+        ReloadListenerRegistry.register(ResourceType.SERVER_DATA, AADataLoader.INSTANCE);
         TickEvent.SERVER_LEVEL_POST.register(
                 world -> {
                     if (world.isClient) return;
@@ -34,7 +42,16 @@ public class ActionArms {
                                                 .tick(); // キーパケットの受け取りがtick後のため、このタイミングでないとprevとnowが同じになる
                                     });
                     ServerHudManager.INSTANCE.tick(world);
+                    ServerReplicationManager.INSTANCE.flush(world);
                 });
+        TickEvent.SERVER_POST.register(DataSyncPacket::syncIfReloaded);
+        PlayerEvent.PLAYER_JOIN.register(DataSyncPacket::sendS2C);
+        PlayerEvent.PLAYER_QUIT.register(
+                player -> {
+                    ServerHudManager.INSTANCE.onPlayerQuit(player);
+                    ServerReplicationManager.INSTANCE.onPlayerQuit(player);
+                });
+        ComponentEvents.CHANGED.register(ServerHudManager.INSTANCE::onComponentChanged);
     }
 
     public static void preInit() {
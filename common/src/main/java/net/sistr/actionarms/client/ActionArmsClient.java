@@ -1,6 +1,7 @@
 package net.sistr.actionarms.client;
 
 import dev.architectury.event.events.client.ClientGuiEvent;
+import dev.architectury.event.events.client.ClientPlayerEvent;
 import dev.architectury.event.events.client.ClientTickEvent;
 import dev.architectury.registry.ReloadListenerRegistry;
 import dev.architectury.registry.client.level.entity.EntityRendererRegistry;
@@ -12,6 +13,7 @@ import net.sistr.actionarms.client.key.AAKeys;
 import net.sistr.actionarms.client.key.ClientAimManager;
 import net.sistr.actionarms.client.key.ClientKeyInputManager;
 import net.sistr.actionarms.client.render.entity.BulletEntityRenderer;
+import net.sistr.actionarms.client.render.entity.BulletTrailRenderer;
 import net.sistr.actionarms.client.render.gltf.data.ModelMetadata;
 import net.sistr.actionarms.client.render.gltf.data.ProcessedGltfModel;
 import net.sistr.actionarms.client.render.gltf.manager.GltfMetadataManager;
@@ -23,6 +25,8 @@ import net.sistr.actionarms.client.render.gltf.renderer.GltfObjectRenderer;
 import net.sistr.actionarms.client.render.gltf.renderer.SAAItemRenderer;
 import net.sistr.actionarms.client.render.hud.AAHudRenderer;
 import net.sistr.actionarms.client.render.hud.ClientHudManager;
+import net.sistr.actionarms.network.DataSyncPacket;
+import net.sistr.actionarms.network.ReplicationPacket;
 import net.sistr.actionarms.setup.Registration;
 
 public class ActionArmsClient {
@@ -32,13 +36,13 @@ public class ActionArmsClient {
                     if (mc.world == null) return;
                     ClientKeyInputManager.INSTANCE.preTick();
                     ClientAimManager.INSTANCE.preTick();
-                    ClientHudManager.INSTANCE.preTick();
                 });
         ClientTickEvent.CLIENT_POST.register(
                 mc -> {
                     if (mc.world == null) return;
                     ItemAnimationManager.INSTANCE.tick(1f / 20f);
                     AAHudRenderer.INSTANCE.tick();
+                    BulletTrailRenderer.INSTANCE.tick(mc.world);
                     GltfObjectRendererRegistry.INSTANCE
                             .<ItemStack>getRenderer(new Identifier(ActionArms.MOD_ID, "colt_saa"))
                             .filter(SAAItemRenderer.class::isInstance)
@@ -46,6 +50,12 @@ public class ActionArmsClient {
                             .ifPresent(SAAItemRenderer::tickCylinderAnimation);
                 });
         ClientGuiEvent.RENDER_HUD.register(AAHudRenderer.INSTANCE::render);
+        ClientPlayerEvent.CLIENT_PLAYER_QUIT.register(
+                player -> {
+                    ClientHudManager.INSTANCE.clear();
+                    ReplicationPacket.resetClient();
+                    DataSyncPacket.resetClient();
+                });
     }
 
     public static void preInit() {
@@ -0,0 +1,121 @@
+package net.sistr.actionarms.client.render.entity;
+
+import java.util.ArrayList;
+import java.util.List;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.particle.ParticleTypes;
+import net.sistr.actionarms.ActionArms;
+import net.sistr.actionarms.entity.BulletEntity;
+
+/**
+ * 弾丸の軌跡をクライアントだけで描く。
+ *
+ * <p>軌跡は弾丸が現れた時の位置と速度から、弾丸と同じ運動モデルでクライアント側で再構築する。サーバーは軌跡のために何もしない。
+ */
+public class BulletTrailRenderer {
+    public static final BulletTrailRenderer INSTANCE = new BulletTrailRenderer();
+    private final List<Trail> trails = new ArrayList<>();
+    private ClientWorld world;
+
+    public void add(BulletEntity bullet) {
+        if (bullet.getWorld() != this.world) {
+            this.trails.clear();
+            this.world = (ClientWorld) bullet.getWorld();
+        }
+        var velocity = bullet.getVelocity();
+        this.trails.add(
+                new Trail(
+                        bullet,
+                        bullet.getX(),
+                        bullet.getY(),
+                        bullet.getZ(),
+                        velocity.x,
+                        velocity.y,
+                        velocity.z));
+    }
+
+    public void tick(ClientWorld world) {
+        if (world != this.world) {
+            this.trails.clear();
+            this.world = world;
+            return;
+        }
+        // 1ブロックあたりの粒子数。0以下なら描かない
+        float density = ActionArms.getConfig().client.bulletTrailDensity;
+        if (density <= 0) {
+            this.trails.clear();
+            return;
+        }
+        double spacing = 1 / (double) density;
+        this.trails.removeIf(trail -> !trail.tick(world, spacing));
+    }
+
+    private static final class Trail {
+        private final BulletEntity bullet;
+        private double x;
+        private double y;
+        private double z;
+        private double velX;
+        private double velY;
+        private double velZ;
+        private int age;
+        // 前のtickで余った距離。tickをまたいでも粒子の間隔を一定に保つ
+        private double offset;
+
+        private Trail(
+                BulletEntity bullet,
+                double x,
+                double y,
+                double z,
+                double velX,
+                double velY,
+                double velZ) {
+            this.bullet = bullet;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.velX = velX;
+            this.velY = velY;
+            this.velZ = velZ;
+        }
+
+        /**
+         * @return 軌跡が続くならtrue
+         */
+        private boolean tick(ClientWorld world, double spacing) {
+            // 弾丸が消えた(命中や寿命)なら軌跡も終わる
+            if (this.bullet.isRemoved() || this.age++ > this.bullet.getDecay()) {
+                return false;
+            }
+            double length =
+                    Math.sqrt(
+                            this.velX * this.velX + this.velY * this.velY + this.velZ * this.velZ);
+            if (length > 0) {
+                double dirX = this.velX / length;
+                double dirY = this.velY / length;
+                double dirZ = this.velZ / length;
+                double distance = this.offset;
+                for (; distance < length; distance += spacing) {
+                    world.addParticle(
+                            ParticleTypes.CRIT,
+                            this.x + dirX * distance,
+                            this.y + dirY * distance,
+                            this.z + dirZ * distance,
+                            this.velX * 0.5,
+                            this.velY * 0.5,
+                            this.velZ * 0.5);
+                }
+                this.offset = distance - length;
+            }
+
+            // BulletEntityと同じ運動モデルで進める
+            this.x += this.velX;
+            this.y += this.velY;
+            this.z += this.velZ;
+            this.velX *= 0.99f;
+            this.velY = this.velY * 0.99f - 0.01f;
+            this.velZ *= 0.99f;
+            return true;
+        }
+    }
+}
@@ -15,6 +15,7 @@ import net.sistr.actionarms.client.render.gltf.data.ModelMetadata;
 import net.sistr.actionarms.client.render.gltf.data.ProcessedGltfModel;
 import net.sistr.actionarms.client.render.gltf.manager.ItemAnimationManager;
 import net.sistr.actionarms.client.render.hud.ClientHudManager;
+import net.sistr.actionarms.hud.HudType;
 import net.sistr.actionarms.hud.SAAHudState;
 import net.sistr.actionarms.item.ItemUniqueManager;
 import net.sistr.actionarms.item.SAAGunItem;
@@ -66,7 +67,7 @@ public class SAAItemRenderer extends ActionArmsItemRenderer {
         var uuid = ItemUniqueManager.INSTANCE.getOrSet(stack);
 
         Optional<SAAHudState> hudStateOpt =
-                ClientHudManager.INSTANCE.getState("saa@" + uuid, SAAHudState::of);
+                ClientHudManager.INSTANCE.getState("saa@" + uuid, HudType.SAA);
 
         // Priority 10: 状態ポーズ
         boolean hammerCocked = hudStateOpt.map(SAAHudState::hammerCocked).orElse(false);
@@ -127,7 +128,7 @@ public class SAAItemRenderer extends ActionArmsItemRenderer {
         if (stack.getItem() instanceof SAAGunItem) {
             var uuid = ItemUniqueManager.INSTANCE.getOrSet(stack);
             Optional<SAAHudState> hudStateOpt =
-                    ClientHudManager.INSTANCE.getState("saa@" + uuid, SAAHudState::of);
+                    ClientHudManager.INSTANCE.getState("saa@" + uuid, HudType.SAA);
             hudStateOpt.ifPresent(
                     hudState -> {
                         var states = hudState.chamberStates();
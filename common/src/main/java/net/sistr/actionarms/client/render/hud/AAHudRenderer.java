@@ -11,7 +11,7 @@ import net.sistr.actionarms.ActionArms;
 import net.sistr.actionarms.client.key.AAKeys;
 import net.sistr.actionarms.entity.util.HasAimManager;
 import net.sistr.actionarms.entity.util.IAimManager;
-import net.sistr.actionarms.hud.BulletHitHudState;
+import net.sistr.actionarms.hud.HudType;
 import net.sistr.actionarms.hud.LeverActionHudState;
 import net.sistr.actionarms.hud.SAAHudState;
 import net.sistr.actionarms.item.ItemUniqueManager;
@@ -58,7 +58,7 @@ public class AAHudRenderer {
             var uuid = ItemUniqueManager.INSTANCE.getOrSet(main);
             Optional<LeverActionHudState> optional =
                     ClientHudManager.INSTANCE.getState(
-                            "lever_action@" + uuid, LeverActionHudState::of);
+                            "lever_action@" + uuid, HudType.LEVER_ACTION);
             optional.ifPresent(
                     hudState ->
                             leverActionHud(
@@ -73,7 +73,7 @@ public class AAHudRenderer {
         if (main.getItem() instanceof SAAGunItem saaGunItem) {
             var uuid = ItemUniqueManager.INSTANCE.getOrSet(main);
             Optional<SAAHudState> optional =
-                    ClientHudManager.INSTANCE.getState("saa@" + uuid, SAAHudState::of);
+                    ClientHudManager.INSTANCE.getState("saa@" + uuid, HudType.SAA);
             optional.ifPresent(
                     hudState ->
                             saaHud(
@@ -350,13 +350,14 @@ public class AAHudRenderer {
         int lineLength = 8; // 線の長さ
         int thickness = 0; // 線の太さ
 
-        var bulletHitState = ClientHudManager.INSTANCE.getRawState("bullet_hit");
+        var bulletHitState =
+                ClientHudManager.INSTANCE.getRawState("bullet_hit", HudType.BULLET_HIT);
 
         // 色を設定
         int color =
                 bulletHitState
                         .filter(state -> state.getLastUpdateTime() < client.world.getTime())
-                        .map(state -> BulletHitHudState.of(state.getNbt()))
+                        .map(HudState::getState)
                         .map(state -> state.state().color())
                         .orElse(0xFFFFFFFF); // 何も無ければ白
 
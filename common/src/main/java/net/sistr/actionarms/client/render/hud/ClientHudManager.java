@@ -1,44 +1,71 @@
 package net.sistr.actionarms.client.render.hud;
 
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
-import java.util.function.Function;
 import net.minecraft.client.MinecraftClient;
-import net.minecraft.nbt.NbtCompound;
+import net.minecraft.network.PacketByteBuf;
+import net.sistr.actionarms.hud.HudType;
 
+/**
+ * サーバーから受け取ったHUDの状態。
+ *
+ * <p>チャンネルはサーバーが作って消すため、こちらからは消さない。接続を切った時だけ全て捨てる。
+ */
 public class ClientHudManager {
     public static final ClientHudManager INSTANCE = new ClientHudManager();
-    public final Map<String, HudState> hudMap = new HashMap<>();
+    private final Int2ObjectMap<HudState<?>> channels = new Int2ObjectOpenHashMap<>();
+    private final Map<String, HudState<?>> hudMap = new HashMap<>();
 
-    public void updateHud(String id, NbtCompound nbt) {
-        var hudState = hudMap.computeIfAbsent(id, HudState::new);
-        hudState.setNbt(nbt);
-        var world = MinecraftClient.getInstance().world;
-        long now = world == null ? 0 : world.getTime();
-        hudState.setLastUpdateTime(now);
+    public <T> void define(int channelId, String id, HudType<T> type, PacketByteBuf buf) {
+        remove(channelId);
+        var hudState = new HudState<>(id, type);
+        hudState.read(buf, now());
+        channels.put(channelId, hudState);
+        hudMap.put(id, hudState);
+    }
+
+    /**
+     * @return チャンネルが見つからなければfalse
+     */
+    public boolean update(int channelId, PacketByteBuf buf) {
+        var hudState = channels.get(channelId);
+        if (hudState == null) {
+            return false;
+        }
+        hudState.read(buf, now());
+        return true;
+    }
+
+    public void remove(int channelId) {
+        var hudState = channels.remove(channelId);
+        if (hudState != null) {
+            hudMap.remove(hudState.getId(), hudState);
+        }
     }
 
-    public void preTick() {
-        hudMap.values()
-                .removeIf(
-                        hudState -> {
-                            long lastUpdateTime = hudState.getLastUpdateTime();
-                            var world = MinecraftClient.getInstance().world;
-                            long now = world == null ? lastUpdateTime : world.getTime();
-                            return now - lastUpdateTime > 20;
-                        });
+    public void clear() {
+        channels.clear();
+        hudMap.clear();
     }
 
-    public Optional<HudState> getRawState(String id) {
-        return Optional.ofNullable(hudMap.get(id));
+    private static long now() {
+        var world = MinecraftClient.getInstance().world;
+        return world == null ? 0 : world.getTime();
     }
 
-    public <T> Optional<T> getState(String id, Function<NbtCompound, T> factory) {
+    @SuppressWarnings("unchecked")
+    public <T> Optional<HudState<T>> getRawState(String id, HudType<T> type) {
         var hudState = hudMap.get(id);
-        if (hudState == null) {
+        if (hudState == null || hudState.getType() != type) {
             return Optional.empty();
         }
-        return Optional.ofNullable(factory.apply(hudState.getNbt()));
+        return Optional.of((HudState<T>) hudState);
+    }
+
+    public <T> Optional<T> getState(String id, HudType<T> type) {
+        return getRawState(id, type).map(HudState::getState);
     }
 }
@@ -1,30 +1,37 @@
 package net.sistr.actionarms.client.render.hud;
 
-import net.minecraft.nbt.NbtCompound;
+import net.minecraft.network.PacketByteBuf;
+import net.sistr.actionarms.hud.HudType;
+import org.jetbrains.annotations.Nullable;
 
-public class HudState {
+public class HudState<T> {
     private final String id;
-    private NbtCompound nbt;
+    private final HudType<T> type;
+    @Nullable private T state;
     private long lastUpdateTime;
 
-    public HudState(String id) {
+    public HudState(String id, HudType<T> type) {
         this.id = id;
+        this.type = type;
     }
 
-    public void setNbt(NbtCompound nbt) {
-        this.nbt = nbt;
-    }
-
-    public void setLastUpdateTime(long lastUpdateTime) {
-        this.lastUpdateTime = lastUpdateTime;
+    /** 前回の状態に、受け取った差分を重ねる。 */
+    public void read(PacketByteBuf buf, long now) {
+        this.state = this.type.getCodec().read(buf, this.state);
+        this.lastUpdateTime = now;
     }
 
     public String getId() {
         return id;
     }
 
-    public NbtCompound getNbt() {
-        return nbt;
+    public HudType<T> getType() {
+        return type;
+    }
+
+    @Nullable
+    public T getState() {
+        return state;
     }
 
     public long getLastUpdateTime() {
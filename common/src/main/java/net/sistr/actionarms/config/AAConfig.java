@@ -17,6 +17,15 @@ public class AAConfig implements ConfigData {
         @ConfigEntry.Gui.Tooltip public boolean showHint = true;
     }
 
+    @ConfigEntry.Category("key")
+    @ConfigEntry.Gui.CollapsibleObject
+    @ConfigEntry.Gui.TransitiveObject
+    public Client client = new Client();
+
+    public static class Client {
+        @ConfigEntry.Gui.Tooltip public float bulletTrailDensity = 1;
+    }
+
     @ConfigEntry.Category("key")
     @ConfigEntry.Gui.CollapsibleObject
     @ConfigEntry.Gui.TransitiveObject
@@ -26,4 +35,31 @@ public class AAConfig implements ConfigData {
         @ConfigEntry.Gui.RequiresRestart public int medium_caliber_bullet_damage = 9;
         @ConfigEntry.Gui.RequiresRestart public int medium_caliber_bullet_headshot_damage = 12;
     }
+
+    @ConfigEntry.Category("key")
+    @ConfigEntry.Gui.CollapsibleObject
+    @ConfigEntry.Gui.TransitiveObject
+    public Server server = new Server();
+
+    public static class Server {
+        @ConfigEntry.Gui.Tooltip public boolean lagCompensationInterestOnly = true;
+        @ConfigEntry.Gui.Tooltip public int lagCompensationInterestRadius = 64;
+
+        @ConfigEntry.Gui.Tooltip
+        @ConfigEntry.Gui.RequiresRestart
+        public float lagCompensationBaseTicks = 4;
+
+        @ConfigEntry.Gui.Tooltip
+        @ConfigEntry.Gui.RequiresRestart
+        public int lagCompensationMaxPing = 500;
+
+        @ConfigEntry.Gui.Tooltip public boolean hitscan = false;
+
+        @ConfigEntry.Gui.Tooltip public float hitscanMinSpeed = 3;
+
+        /** 遅延が上限のプレイヤーの射撃まで巻き戻せる履歴の長さ。補間のため2tick分の余裕を持つ。 */
+        public int getLagCompensationHistoryTicks() {
+            return (int) Math.ceil(lagCompensationBaseTicks + lagCompensationMaxPing / 50.0) + 2;
+        }
+    }
 }
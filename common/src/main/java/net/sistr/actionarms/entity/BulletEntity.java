@@ -1,15 +1,9 @@
 package net.sistr.actionarms.entity;
 
 import java.util.UUID;
-import java.util.function.Predicate;
 import net.minecraft.entity.*;
-import net.minecraft.entity.boss.dragon.EnderDragonPart;
-import net.minecraft.entity.damage.DamageSource;
 import net.minecraft.nbt.NbtCompound;
-import net.minecraft.particle.ParticleTypes;
-import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.server.world.ServerWorld;
-import net.minecraft.util.hit.BlockHitResult;
 import net.minecraft.util.hit.EntityHitResult;
 import net.minecraft.util.hit.HitResult;
 import net.minecraft.util.math.Box;
@@ -17,21 +11,27 @@ import net.minecraft.util.math.MathHelper;
 import net.minecraft.util.math.Vec3d;
 import net.minecraft.world.RaycastContext;
 import net.minecraft.world.World;
-import net.sistr.actionarms.entity.util.EntityRecordManager;
-import net.sistr.actionarms.entity.util.HasEntityRecordManager;
-import net.sistr.actionarms.hud.BulletHitHudState;
+import net.sistr.actionarms.client.render.entity.BulletTrailRenderer;
+import net.sistr.actionarms.entity.util.BulletManager;
+import net.sistr.actionarms.entity.util.HasBulletManager;
 import net.sistr.actionarms.item.data.AADataRegistry;
 import net.sistr.actionarms.item.data.BulletData;
-import net.sistr.actionarms.mixin.DamageSourcesAccessor;
-import net.sistr.actionarms.network.HudStatePacket;
-import net.sistr.actionarms.setup.Registration;
+import net.sistr.actionarms.mixin.EntityAccessor;
 import org.jetbrains.annotations.Nullable;
 
+/**
+ * 弾丸のエンティティ。
+ *
+ * <p>サーバーでの移動と命中判定は {@link BulletManager} がまとめて行い、このエンティティはクライアントで描画するための代理として扱う。
+ * 管理外で生成されたもの(コマンドや旧データ)は最初のtickで {@link BulletManager} に引き取られる。
+ */
 public class BulletEntity extends Entity implements Ownable {
     @Nullable private UUID ownerId;
     @Nullable private Entity owner;
     private BulletData bullet = AADataRegistry.MEDIUM_CALIBER_BULLET;
     private int decay = 40;
+    // BulletManagerが動かしている代理か
+    private boolean managed;
 
     public BulletEntity(EntityType<? extends BulletEntity> type, World world) {
         super(type, world);
@@ -45,26 +45,58 @@ public class BulletEntity extends Entity implements Ownable {
             Vec3d fireFrom,
             Vec3d fireFor,
             float speed) {
+        var velocity = fireFor.normalize().multiply(speed);
+        return of(type, world, owner, bulletType, fireFrom, velocity);
+    }
+
+    public static BulletEntity of(
+            EntityType<? extends BulletEntity> type,
+            World world,
+            @Nullable Entity owner,
+            BulletData bulletType,
+            Vec3d pos,
+            Vec3d velocity) {
         var bullet = new BulletEntity(type, world);
-        bullet.setPosition(fireFrom.x, fireFrom.y, fireFrom.z);
-        bullet.setVelocity(fireFor.normalize().multiply(speed));
+        bullet.init(owner, bulletType, pos, velocity);
+        return bullet;
+    }
+
+    /**
+     * 取り除かれた弾丸を、新しく発射されたものとして再利用する。再びワールドに追加する前に呼ぶこと。
+     *
+     * <p>UUIDとネットワークIDは振り直す。取り除いた弾丸の登録解除や、クライアントでの削除の処理と順序が前後しても、別のエンティティとして扱われる。
+     */
+    public void reuse(@Nullable Entity owner, BulletData bulletType, Vec3d pos, Vec3d velocity) {
+        this.unsetRemoved();
+        this.setId(EntityAccessor.getCurrentId().incrementAndGet());
+        this.setUuid(MathHelper.randomUuid(this.random));
+        this.age = 0;
+        this.firstUpdate = true;
+        this.owner = null;
+        this.ownerId = null;
+        init(owner, bulletType, pos, velocity);
+        this.resetPosition();
+    }
 
-        Vec3d velocity = fireFor.normalize();
-        float yaw = (float) Math.toDegrees(Math.atan2(-velocity.x, velocity.z));
+    private void init(@Nullable Entity owner, BulletData bulletType, Vec3d pos, Vec3d velocity) {
+        this.setPosition(pos.x, pos.y, pos.z);
+        this.setVelocity(velocity);
+
+        Vec3d direction = velocity.normalize();
+        float yaw = (float) Math.toDegrees(Math.atan2(-direction.x, direction.z));
         float horizontalLength =
-                (float) Math.sqrt(velocity.x * velocity.x + velocity.z * velocity.z);
-        float pitch = (float) Math.toDegrees(Math.atan2(-velocity.y, horizontalLength));
-        bullet.setYaw(yaw);
-        bullet.setPitch(pitch);
-        bullet.prevYaw = yaw;
-        bullet.prevPitch = pitch;
+                (float) Math.sqrt(direction.x * direction.x + direction.z * direction.z);
+        float pitch = (float) Math.toDegrees(Math.atan2(-direction.y, horizontalLength));
+        this.setYaw(yaw);
+        this.setPitch(pitch);
+        this.prevYaw = yaw;
+        this.prevPitch = pitch;
 
         if (owner != null) {
-            bullet.owner = owner;
-            bullet.ownerId = owner.getUuid();
+            this.owner = owner;
+            this.ownerId = owner.getUuid();
         }
-        bullet.bullet = bulletType;
-        return bullet;
+        this.bullet = bulletType;
     }
 
     @Override
@@ -99,36 +131,26 @@ public class BulletEntity extends Entity implements Ownable {
 
     @Override
     public void tick() {
+        if (this.getWorld() instanceof ServerWorld serverWorld) {
+            // サーバーではBulletManagerが動かす
+            if (!this.managed) {
+                ((HasBulletManager) serverWorld).actionArms$getBulletManager().adopt(this);
+            }
+            return;
+        }
         if (this.age > this.decay) {
             this.discard();
             return;
         }
+        if (this.firstUpdate) {
+            // 軌跡は現れた時の位置と速度からクライアントだけで描く
+            BulletTrailRenderer.INSTANCE.add(this);
+        }
         super.tick();
-        // 現在の速度で移動した時に、物体(モブかブロック)とぶつかるかをチェック
+        // 見た目用の移動。命中処理はサーバーで行うため、ブロックに当たったら消すだけ
         var start = this.getPos();
         var end = start.add(this.getVelocity());
-        var hitResult = raycast(start, end);
-
-        // ぶつかったらhit処理
-        if (hitResult.getType() != HitResult.Type.MISS) {
-            hit(hitResult);
-        }
-
-        var currentPos = this.getPos();
-        var nextPos = currentPos.add(this.getVelocity());
-
-        showTrailParticle(start, end);
-
-        // 移動処理
-        this.setPosition(nextPos);
-
-        // 次tickのために速度を更新
-        updateVelocity();
-    }
-
-    private HitResult raycast(Vec3d start, Vec3d end) {
-        // 最初にブロックとの当たり判定をチェックする
-        var bResult =
+        var hitResult =
                 this.getWorld()
                         .raycast(
                                 new RaycastContext(
@@ -137,240 +159,16 @@ public class BulletEntity extends Entity implements Ownable {
                                         RaycastContext.ShapeType.COLLIDER,
                                         RaycastContext.FluidHandling.NONE,
                                         this));
-        if (bResult.getType() != HitResult.Type.MISS) {
-            end = bResult.getPos();
-        }
-        var eResult =
-                getEntityCollision(
-                        this.getWorld(),
-                        this,
-                        start,
-                        end,
-                        this.getBoundingBox().stretch(this.getVelocity()).expand(4.0),
-                        this::canHit,
-                        0.01f);
-        return eResult != null ? eResult : bResult;
-    }
-
-    // EntityRecordベースの連続衝突判定
-    private static @Nullable ExtendEntityHitResult getEntityCollision(
-            World world,
-            Entity projectile,
-            Vec3d start,
-            Vec3d end,
-            Box hittableBox,
-            Predicate<Entity> predicate,
-            float size) {
-        if (!(world instanceof ServerWorld)) {
-            return null;
-        }
-        double nearestTime = Double.MAX_VALUE;
-        Entity nearestEntity = null;
-        for (Entity entity : world.getOtherEntities(projectile, hittableBox, predicate)) {
-            // ターゲットのボックスと速度を取得する
-            // HasEntityRecordManagerはServerWorldだけが実装しているため注意
-            var entityRecordManager =
-                    ((HasEntityRecordManager) world).actionArms$getEntityRecordManager();
-
-            // 過去の状態を取得して、クライアント/サーバーラグを補償する
-            EntityRecordManager.EntityRecord oldRecord;
-            EntityRecordManager.EntityRecord newRecord;
-
-            var olderTick = entityRecordManager.getRecord(entity.getUuid(), 5);
-            var oldTick = entityRecordManager.getRecord(entity.getUuid(), 4);
-
-            if (olderTick.isPresent() && oldTick.isPresent()) {
-                // 理想的なケース：5tick前と4tick前のデータが両方存在
-                oldRecord = olderTick.get();
-                newRecord = oldTick.get();
-            } else if (oldTick.isPresent()) {
-                // 5tick前のデータがない場合：4tick前 → 現在の速度を計算
-                oldRecord = oldTick.get();
-                newRecord =
-                        new EntityRecordManager.EntityRecord(
-                                entity.getUuid(),
-                                entity.getPos(),
-                                entity.getBoundingBox(),
-                                entity.getEyePos());
-            } else {
-                // どちらもない場合：速度は0として扱う
-                oldRecord =
-                        new EntityRecordManager.EntityRecord(
-                                entity.getUuid(),
-                                entity.getPos(),
-                                entity.getBoundingBox(),
-                                entity.getEyePos());
-                newRecord = oldRecord;
-            }
-
-            var entityVelocity = newRecord.pos().subtract(oldRecord.pos());
-            var entityBox = oldRecord.boundingBox();
-            var result =
-                    BulletEntity.CollisionDetector.detectCollision(
-                            start, size, end.subtract(start), entityBox, entityVelocity);
-            // ヒットして、なおかつ最も近いなら更新
-            if (result.isCollisionCurrentTick() && result.collisionTime() < nearestTime) {
-                nearestEntity = entity;
-                nearestTime = result.collisionTime();
-            }
-        }
-        if (nearestEntity == null) {
-            return null;
-        }
-        return new ExtendEntityHitResult(nearestEntity, nearestTime);
-    }
-
-    private boolean canHit(Entity entity) {
-        var owner = this.getOwner();
-        return entity != owner
-                && (owner == null
-                        || !owner.isConnectedThroughVehicle(entity)
-                                && owner.getRootVehicle() != entity)
-                && entity.isAttackable()
-                && entity.canBeHitByProjectile();
-    }
-
-    private void hit(HitResult result) {
-        boolean hit = false;
-        if (result.getType() == HitResult.Type.ENTITY) {
-            hit = entityHit((ExtendEntityHitResult) result);
-        } else if (result.getType() == HitResult.Type.BLOCK) {
-            hit = blockHit((BlockHitResult) result);
-        }
-        if (hit) {
-            // velocityをヒット位置未満に更新
-            var hitPos = result.getPos();
-            var currentPos = this.getPos();
-            var velocity = this.getVelocity();
-            double distanceToHit = hitPos.distanceTo(currentPos);
-            double totalDistance = velocity.length();
-            if (distanceToHit < totalDistance) {
-                this.setVelocity(velocity.normalize().multiply(distanceToHit));
-            }
-
-            // 消去
+        if (hitResult.getType() != HitResult.Type.MISS) {
             this.discard();
+            return;
         }
-    }
-
-    private boolean entityHit(ExtendEntityHitResult result) {
-        var hitTarget = result.getEntity();
-        var data = this.bullet;
-        boolean isHeadshot = isHeadshot(result);
-        float damage = isHeadshot ? data.headshotDamage() : data.damage();
-
-        if (hitTarget.damage(createDamageSource(), damage)) {
-            var owner = getOwner();
-            if (owner instanceof ServerPlayerEntity player) {
-                boolean kill = !hitTarget.isAlive();
-                var state = BulletHitHudState.State.of(kill, isHeadshot);
-                HudStatePacket.sendS2C(player, "bullet_hit", BulletHitHudState.of(state).write());
-            }
-
-            return true;
-        }
-
-        return false;
-    }
-
-    private boolean isHeadshot(ExtendEntityHitResult result) {
-        var hitTarget = result.getEntity();
-        if (!(this.getWorld() instanceof ServerWorld)) {
-            return false;
-        }
-
-        var entityRecordManager =
-                ((HasEntityRecordManager) this.getWorld()).actionArms$getEntityRecordManager();
-        var olderTick = entityRecordManager.getRecord(hitTarget.getUuid(), 5);
-        var oldTick = entityRecordManager.getRecord(hitTarget.getUuid(), 4);
-
-        EntityRecordManager.EntityRecord record;
-        if (olderTick.isPresent() && oldTick.isPresent()) {
-            // Linear interpolation between older and old records using hitTime
-            double t = result.getHitTime();
-            var older = olderTick.get();
-            var old = oldTick.get();
-
-            var pos = older.pos().lerp(old.pos(), t);
-            var box =
-                    new Box(
-                            lerp(older.boundingBox().minX, old.boundingBox().minX, t),
-                            lerp(older.boundingBox().minY, old.boundingBox().minY, t),
-                            lerp(older.boundingBox().minZ, old.boundingBox().minZ, t),
-                            lerp(older.boundingBox().maxX, old.boundingBox().maxX, t),
-                            lerp(older.boundingBox().maxY, old.boundingBox().maxY, t),
-                            lerp(older.boundingBox().maxZ, old.boundingBox().maxZ, t));
-            var eyePos = older.eyePos().lerp(old.eyePos(), t);
-
-            record = new EntityRecordManager.EntityRecord(hitTarget.getUuid(), pos, box, eyePos);
-        } else if (oldTick.isPresent()) {
-            record = oldTick.get();
-        } else {
-            record =
-                    new EntityRecordManager.EntityRecord(
-                            hitTarget.getUuid(),
-                            hitTarget.getPos(),
-                            hitTarget.getBoundingBox(),
-                            hitTarget.getEyePos());
-        }
-
-        var hitTargetBox = record.boundingBox();
-        double targetWidth = hitTargetBox.maxX - hitTargetBox.minX;
-        double targetHeight = hitTargetBox.maxY - hitTargetBox.minY;
-        // 身長1以下は全身ヘッドショット判定
-        if (targetHeight <= 1) {
-            return true;
-        }
-        if (hitTarget instanceof EnderDragonPart part) {
-            return part.name.equals("head");
-        }
-        // 横幅と高さが一定以下なら、頭部判定を作成し、それを通過していればヘッドショット判定とする
-        if (targetWidth <= 2 && targetHeight <= 4) {
-            double weakBoxSize = targetWidth;
-            if (weakBoxSize > 1) {
-                weakBoxSize = 1 + (weakBoxSize - 1) * 0.5;
-            }
-            weakBoxSize *= 0.8;
-            Vec3d eyePos = record.eyePos();
-            var weakBox = Box.of(eyePos, weakBoxSize, weakBoxSize, weakBoxSize);
-            var start = this.getPos();
-            var end = start.add(this.getVelocity().multiply(2));
-            return weakBox.raycast(start, end).isPresent();
-        }
-
-        // 大型の敵ならヘッドショット判定無しとする (仮)
-        return false;
-    }
-
-    private DamageSource createDamageSource() {
-        var damageSources = this.getDamageSources();
-        var registry = ((DamageSourcesAccessor) damageSources).getRegistry();
-        return new DamageSource(
-                registry.entryOf(Registration.BULLET_DAMAGE_TYPE), this, this.getOwner());
-    }
 
-    private boolean blockHit(BlockHitResult result) {
-        return true;
-    }
+        // 移動処理
+        this.setPosition(end);
 
-    private void showTrailParticle(Vec3d start, Vec3d end) {
-        float particleDistance = 1;
-        var direction = end.subtract(start).normalize();
-        double totalDistance = start.distanceTo(end);
-
-        for (double distance = 0; distance < totalDistance; distance += particleDistance) {
-            var particlePos = start.add(direction.multiply(distance));
-            var velocity = this.getVelocity().multiply(0.5);
-            this.getWorld()
-                    .addParticle(
-                            ParticleTypes.CRIT,
-                            particlePos.getX(),
-                            particlePos.getY(),
-                            particlePos.getZ(),
-                            velocity.getX(),
-                            velocity.getY(),
-                            velocity.getZ());
-        }
+        // 次tickのために速度を更新
+        updateVelocity();
     }
 
     private void updateVelocity() {
@@ -380,6 +178,12 @@ public class BulletEntity extends Entity implements Ownable {
         this.setVelocity(velocity);
     }
 
+    @Override
+    public boolean shouldSave() {
+        // 飛んでいる弾丸はすぐに消えるため、チャンクと一緒に保存しない
+        return false;
+    }
+
     @Override
     public boolean isAttackable() {
         return false;
@@ -397,6 +201,22 @@ public class BulletEntity extends Entity implements Ownable {
         return null;
     }
 
+    public BulletData getBullet() {
+        return bullet;
+    }
+
+    public int getDecay() {
+        return decay;
+    }
+
+    public boolean isManaged() {
+        return managed;
+    }
+
+    public void setManaged(boolean managed) {
+        this.managed = managed;
+    }
+
     public record CollisionResult(boolean hasCollision, double collisionTime) {
         public static final CollisionResult NONE = new CollisionResult(false, -1);
 
@@ -405,8 +225,26 @@ public class BulletEntity extends Entity implements Ownable {
         }
     }
 
-    private static double lerp(double start, double end, double t) {
-        return start + (end - start) * t;
+    /** 使い回し用の衝突結果。{@link CollisionResult} と同じ値を持つ。 */
+    public static final class MutableCollisionResult {
+        boolean hasCollision;
+        double collisionTime = -1;
+
+        public boolean hasCollision() {
+            return hasCollision;
+        }
+
+        public double collisionTime() {
+            return collisionTime;
+        }
+
+        public boolean isCollisionCurrentTick() {
+            return hasCollision && collisionTime <= 1;
+        }
+
+        public CollisionResult toResult() {
+            return hasCollision ? new CollisionResult(true, collisionTime) : CollisionResult.NONE;
+        }
     }
 
     public static class CollisionDetector {
@@ -424,63 +262,126 @@ public class BulletEntity extends Entity implements Ownable {
          */
         public static CollisionResult detectCollision(
                 Vec3d sp, double size, Vec3d spVelocity, Box box, Vec3d boxVelocity) {
+            var out = new MutableCollisionResult();
+            detectCollision(
+                    sp.x,
+                    sp.y,
+                    sp.z,
+                    size,
+                    spVelocity.x,
+                    spVelocity.y,
+                    spVelocity.z,
+                    box.minX,
+                    box.minY,
+                    box.minZ,
+                    box.maxX,
+                    box.maxY,
+                    box.maxZ,
+                    boxVelocity.x,
+                    boxVelocity.y,
+                    boxVelocity.z,
+                    out);
+            return out.toResult();
+        }
+
+        /**
+         * 球体とAABBの連続衝突検出。{@link #detectCollision(Vec3d, double, Vec3d, Box, Vec3d)}
+         * と同じ計算を、オブジェクトを生成せずに行う。
+         *
+         * @param out 結果の書き込み先
+         * @return 衝突するなら true
+         */
+        public static boolean detectCollision(
+                double spX,
+                double spY,
+                double spZ,
+                double size,
+                double spVelX,
+                double spVelY,
+                double spVelZ,
+                double minX,
+                double minY,
+                double minZ,
+                double maxX,
+                double maxY,
+                double maxZ,
+                double boxVelX,
+                double boxVelY,
+                double boxVelZ,
+                MutableCollisionResult out) {
+            out.hasCollision = false;
+            out.collisionTime = -1;
+
             // 相対速度を計算（球がAABBに対してどう動くかを計算）
-            Vec3d relVel = spVelocity.subtract(boxVelocity);
+            double relVelX = spVelX - boxVelX;
+            double relVelY = spVelY - boxVelY;
+            double relVelZ = spVelZ - boxVelZ;
 
             // 球の半径分だけAABBを拡張
-            box = box.expand(size);
+            minX -= size;
+            minY -= size;
+            minZ -= size;
+            maxX += size;
+            maxY += size;
+            maxZ += size;
 
             // 各軸での衝突時間区間を計算
-            double[] xInterval = calculateAxisInterval(sp.x, relVel.getX(), box.minX, box.maxX);
-            double[] yInterval = calculateAxisInterval(sp.y, relVel.getY(), box.minY, box.maxY);
-            double[] zInterval = calculateAxisInterval(sp.z, relVel.getZ(), box.minZ, box.maxZ);
-
-            if (xInterval == null || yInterval == null || zInterval == null) {
-                return CollisionResult.NONE;
+            if (isAxisUnreachable(spX, relVelX, minX, maxX)
+                    || isAxisUnreachable(spY, relVelY, minY, maxY)
+                    || isAxisUnreachable(spZ, relVelZ, minZ, maxZ)) {
+                return false;
             }
 
             // 3軸の時間区間の交集合を計算
-            double tEnter = Math.max(Math.max(xInterval[0], yInterval[0]), zInterval[0]);
-            double tExit = Math.min(Math.min(xInterval[1], yInterval[1]), zInterval[1]);
+            double tEnter =
+                    Math.max(
+                            Math.max(
+                                    axisEnter(spX, relVelX, minX, maxX),
+                                    axisEnter(spY, relVelY, minY, maxY)),
+                            axisEnter(spZ, relVelZ, minZ, maxZ));
+            double tExit =
+                    Math.min(
+                            Math.min(
+                                    axisExit(spX, relVelX, minX, maxX),
+                                    axisExit(spY, relVelY, minY, maxY)),
+                            axisExit(spZ, relVelZ, minZ, maxZ));
 
             // 交集合が存在し、かつ未来の時間であれば衝突
             boolean hasCollision = tEnter <= tExit && tExit >= 0;
-            if (!hasCollision) return CollisionResult.NONE;
+            if (!hasCollision) return false;
 
-            double collisionTime = Math.max(0, tEnter);
+            out.hasCollision = true;
+            out.collisionTime = Math.max(0, tEnter);
+            return true;
+        }
 
-            return new CollisionResult(true, collisionTime);
+        /** 範囲外かつ速度0なら永続的に衝突しない */
+        private static boolean isAxisUnreachable(double pos, double vel, double min, double max) {
+            return !(min <= pos && pos <= max) && Math.abs(vel) < EPSILON;
         }
 
         /**
-         * 1軸での衝突時間区間を計算
+         * 1軸での衝突開始時間を計算
          *
          * @param pos 球の中心位置（該当軸）
          * @param vel 相対速度（該当軸）
          * @param min 拡張されたAABBの最小値
          * @param max 拡張されたAABBの最大値
-         * @return 時間区間 [tEnter, tExit]、衝突しない場合はnull
          */
-        private static double @Nullable [] calculateAxisInterval(
-                double pos, double vel, double min, double max) {
+        private static double axisEnter(double pos, double vel, double min, double max) {
             // 既に範囲内にいる場合は常に衝突
             if (min <= pos && pos <= max) {
-                return new double[] {0, Double.POSITIVE_INFINITY};
-            }
-            // 範囲外かつ速度0なら永続的に衝突しない
-            if (Math.abs(vel) < EPSILON) {
-                return null;
+                return 0;
             }
+            return Math.min((min - pos) / vel, (max - pos) / vel);
+        }
 
-            // 速度がある場合の時間計算
-            double t1 = (min - pos) / vel;
-            double t2 = (max - pos) / vel;
-
-            // 時間の順序を正しくする
-            double tEnter = Math.min(t1, t2);
-            double tExit = Math.max(t1, t2);
-
-            return new double[] {tEnter, tExit};
+        /** 1軸での衝突終了時間を計算。引数は {@link #axisEnter} と同じ */
+        private static double axisExit(double pos, double vel, double min, double max) {
+            if (min <= pos && pos <= max) {
+                return Double.POSITIVE_INFINITY;
+            }
+            return Math.max((min - pos) / vel, (max - pos) / vel);
         }
     }
 
@@ -0,0 +1,89 @@
+package net.sistr.actionarms.entity.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import net.minecraft.entity.player.PlayerInventory;
+import net.minecraft.inventory.Inventory;
+import net.minecraft.item.ItemStack;
+import net.sistr.actionarms.item.ItemUniqueManager;
+
+/**
+ * 選択を外れてもtickが必要な銃を覚えておく。
+ *
+ * <p>選択中の銃とオフハンドの銃は毎tick登録し、外れた後はtickで何も変わらなくなるまで処理を続ける。何もしていない銃は登録されないため、毎tickインベントリを走査せずに済む。
+ *
+ * <p>選択されずにインベントリへ入った銃も処理が残っていることがあるため、インベントリが変わったtickにだけ走査して全ての銃を登録する。
+ * UUIDの重複もこの走査で確かめる。
+ */
+public class ActiveGunRegistry {
+    private final List<Entry> entries = new ArrayList<>();
+    private int checkedChangeCount = -1;
+
+    public void add(int slot, ItemStack stack) {
+        for (int i = 0; i < this.entries.size(); i++) {
+            var entry = this.entries.get(i);
+            if (entry.stack == stack) {
+                entry.slot = slot;
+                return;
+            }
+        }
+        this.entries.add(new Entry(slot, stack));
+    }
+
+    /**
+     * 選択中のものを除く登録された銃を処理する。別のスロットへ移されたものと、処理しても何も変わらなかったものは外す。
+     *
+     * @param ticker 銃を処理し、状態が変わればtrueを返す
+     */
+    public void tick(Inventory inventory, ItemStack selected, Predicate<ItemStack> ticker) {
+        for (int i = this.entries.size() - 1; i >= 0; i--) {
+            var entry = this.entries.get(i);
+            if (entry.stack == selected) {
+                continue;
+            }
+            if (entry.slot >= inventory.size()
+                    || inventory.getStack(entry.slot) != entry.stack
+                    || !ticker.test(entry.stack)) {
+                this.entries.remove(i);
+            }
+        }
+    }
+
+    /**
+     * インベントリが変わっていれば、全ての銃を登録し、UUIDの重複を確かめる。
+     *
+     * <p>登録した銃は次の {@link #tick} で処理され、何も変わらなければ外れる。
+     *
+     * <p>複製などで同じUUIDの銃が増えるのはインベントリが変わった時なので、その時に全ての銃を同じtickで確かめれば重複を見つけられる。
+     * 同じtickに同じスタックを二度確かめると重複とみなされるため、ここ以外では確かめないこと。
+     */
+    public void scanInventory(PlayerInventory inventory, Predicate<ItemStack> isGun) {
+        int changeCount = inventory.getChangeCount();
+        if (changeCount == this.checkedChangeCount) {
+            return;
+        }
+        this.checkedChangeCount = changeCount;
+        for (int i = 0; i < inventory.size(); i++) {
+            var stack = inventory.getStack(i);
+            if (isGun.test(stack)) {
+                ItemUniqueManager.INSTANCE.uniqueCheck(inventory.player.getWorld(), stack);
+                add(i, stack);
+            }
+        }
+    }
+
+    public int size() {
+        return this.entries.size();
+    }
+
+    private static final class Entry {
+        private int slot;
+        private final ItemStack stack;
+
+        private Entry(int slot, ItemStack stack) {
+            this.slot = slot;
+            this.stack = stack;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package net.sistr.actionarms.entity.util;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import net.minecraft.entity.player.PlayerInventory;
+import net.minecraft.inventory.Inventory;
+import net.sistr.actionarms.item.data.BulletData;
+
+/**
+ * インベントリ内の弾を種類ごとに数えた索引。
+ *
+ * <p>プレイヤーのインベントリでは索引をインベントリに持たせ、tickが進むかインベントリが変更されるまで使い回す。索引を通して取り出した弾はその場で索引にも反映する。
+ * 索引が古くても、取り出す時にスロットの中身を確かめるため、違う物を取り出すことはない。
+ *
+ * <p>インベントリの変更を受けて差分だけ直すことはしない。スタックの個数は {@code ItemStack#decrement} などで直接書き換えられ、
+ * 変更回数にも現れないため、差分を拾う口がない。代わりに、インベントリを見るのが1tickに何度あっても走査は1回で済むよう、tickごとに作り直す。
+ */
+public class AmmoIndex {
+    private final Reference2IntOpenHashMap<BulletData> counts = new Reference2IntOpenHashMap<>();
+    // 弾が入っているスロット
+    private final IntArrayList slots = new IntArrayList();
+    private int age = -1;
+    private int changeCount = -1;
+
+    public static AmmoIndex of(Inventory inventory) {
+        if (inventory instanceof PlayerInventory playerInventory
+                && inventory instanceof HasAmmoIndex holder) {
+            var index = holder.actionArms$getAmmoIndex();
+            int age = playerInventory.player.age;
+            int changeCount = playerInventory.getChangeCount();
+            if (index.age != age || index.changeCount != changeCount) {
+                index.rebuild(inventory);
+                index.age = age;
+                index.changeCount = changeCount;
+            }
+            return index;
+        }
+        // 索引を持てないインベントリは、その都度作る
+        var index = new AmmoIndex();
+        index.rebuild(inventory);
+        return index;
+    }
+
+    private void rebuild(Inventory inventory) {
+        this.counts.clear();
+        this.slots.clear();
+        for (int i = 0; i < inventory.size(); i++) {
+            var bullet = InventoryAmmoUtil.getBullet(inventory.getStack(i)).orElse(null);
+            if (bullet != null) {
+                this.counts.addTo(bullet, inventory.getStack(i).getCount());
+                this.slots.add(i);
+            }
+        }
+    }
+
+    public int getCount(BulletData bullet) {
+        return this.counts.getInt(bullet);
+    }
+
+    public boolean hasBullet(Predicate<BulletData> predicate) {
+        for (Reference2IntMap.Entry<BulletData> entry : this.counts.reference2IntEntrySet()) {
+            if (entry.getIntValue() > 0 && predicate.test(entry.getKey())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** 弾が入っているスロットだけを前から見て、条件に合う弾を最大limit発取り出す。 */
+    public List<BulletData> popBullets(
+            Inventory inventory, Predicate<BulletData> predicate, int limit) {
+        var bullets = new ArrayList<BulletData>();
+        if (!hasBullet(predicate)) {
+            return bullets;
+        }
+        for (int n = 0; n < this.slots.size() && bullets.size() < limit; n++) {
+            int slot = this.slots.getInt(n);
+            var bullet = InventoryAmmoUtil.getBullet(inventory.getStack(slot)).orElse(null);
+            if (bullet == null || !predicate.test(bullet)) {
+                continue;
+            }
+            int count = inventory.removeStack(slot, limit - bullets.size()).getCount();
+            for (int j = 0; j < count; j++) {
+                bullets.add(bullet);
+            }
+            this.counts.put(bullet, Math.max(this.counts.getInt(bullet) - count, 0));
+        }
+        return bullets;
+    }
+}
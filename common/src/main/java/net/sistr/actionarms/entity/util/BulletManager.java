@@ -0,0 +1,777 @@
+package net.sistr.actionarms.entity.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Predicate;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.boss.dragon.EnderDragonPart;
+import net.minecraft.entity.damage.DamageSource;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.hit.BlockHitResult;
+import net.minecraft.util.hit.HitResult;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Box;
+import net.minecraft.util.math.Direction;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.RaycastContext;
+import net.sistr.actionarms.ActionArms;
+import net.sistr.actionarms.entity.BulletEntity;
+import net.sistr.actionarms.hud.BulletHitHudState;
+import net.sistr.actionarms.hud.HudType;
+import net.sistr.actionarms.hud.ServerHudManager;
+import net.sistr.actionarms.item.data.BulletData;
+import net.sistr.actionarms.mixin.DamageSourcesAccessor;
+import net.sistr.actionarms.setup.Registration;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * ワールド内の弾丸をまとめてシミュレーションする。
+ *
+ * <p>弾丸の状態は配列に詰めて保持し、ワールドのtick毎に1回の走査で移動と当たり判定を行う。運動モデルと命中判定は {@link BulletEntity}
+ * と同じ。エンティティは近くにプレイヤーがいて描画が必要な場合にだけ、見た目用の代理として生成する。
+ */
+public class BulletManager {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int DEFAULT_DECAY = 40;
+    private static final int MAX_POOL_SIZE = 64;
+    // 弾丸の当たり判定サイズ (BulletEntityのEntityTypeと同じ)
+    private static final double BULLET_HALF_SIZE = 0.025;
+    private static final float COLLISION_SIZE = 0.01f;
+    // 即着弾の候補を集める時に見込む、エンティティの1tickあたりの移動量。全力で走る馬程度まで
+    private static final double MAX_REWIND_SPEED = 1.0;
+
+    private final ServerWorld world;
+    // 記録の読み出し先
+    private final EntityRecordManager.EntityRecord oldRecord =
+            new EntityRecordManager.EntityRecord();
+    private final EntityRecordManager.EntityRecord newRecord =
+            new EntityRecordManager.EntityRecord();
+    private final EntityRecordManager.EntityRecord hitRecord =
+            new EntityRecordManager.EntityRecord();
+    private final EntityRecordManager.EntityRecord boundsRecord =
+            new EntityRecordManager.EntityRecord();
+    // そのtickの全弾丸で共有する当たり判定の候補
+    private final EntityGrid entityGrid = new EntityGrid();
+    private final BulletEntity.MutableCollisionResult collisionResult =
+            new BulletEntity.MutableCollisionResult();
+    private final BlockPos.Mutable mutablePos = new BlockPos.Mutable();
+    private final Predicate<Entity> canHit = this::canHit;
+    // 判定中の弾丸の所有者。canHitから参照する
+    @Nullable private Entity currentOwner;
+    private int count;
+    private double[] posX = new double[INITIAL_CAPACITY];
+    private double[] posY = new double[INITIAL_CAPACITY];
+    private double[] posZ = new double[INITIAL_CAPACITY];
+    private double[] velX = new double[INITIAL_CAPACITY];
+    private double[] velY = new double[INITIAL_CAPACITY];
+    private double[] velZ = new double[INITIAL_CAPACITY];
+    private int[] ages = new int[INITIAL_CAPACITY];
+    private int[] decays = new int[INITIAL_CAPACITY];
+    private BulletData[] bullets = new BulletData[INITIAL_CAPACITY];
+    private UUID[] ownerIds = new UUID[INITIAL_CAPACITY];
+    private Entity[] owners = new Entity[INITIAL_CAPACITY];
+    private BulletEntity[] proxies = new BulletEntity[INITIAL_CAPACITY];
+    // 取り除いた代理。次に代理が必要になった時に使い回す
+    private final ArrayDeque<BulletEntity> proxyPool = new ArrayDeque<>();
+    // 即着弾の弾道
+    private final HitscanPath path = new HitscanPath(DEFAULT_DECAY);
+    private final HitscanPath.Tracer pathTracer = new WorldPathTracer();
+    private final List<Entity> segmentCandidates = new ArrayList<>();
+
+    public BulletManager(ServerWorld world) {
+        this.world = world;
+    }
+
+    /** 弾丸を発射する。 */
+    public void fire(
+            @Nullable Entity owner, BulletData bullet, Vec3d from, Vec3d direction, float speed) {
+        var velocity = direction.normalize().multiply(speed);
+        var config = ActionArms.getConfig().server;
+        if (owner != null
+                && config.hitscan
+                && bullet.hitscan()
+                && speed >= config.hitscanMinSpeed) {
+            fireHitscan(owner, bullet, from, velocity);
+            return;
+        }
+        int i = add(owner, bullet, from.x, from.y, from.z, velocity.x, velocity.y, velocity.z);
+        if (isWatched(from.x, from.y, from.z)) {
+            spawnProxy(i);
+        }
+    }
+
+    /** 管理外で生成された弾丸エンティティ(コマンドや旧データ)を引き取る。 */
+    public void adopt(BulletEntity entity) {
+        var velocity = entity.getVelocity();
+        int i =
+                add(
+                        entity.getOwner(),
+                        entity.getBullet(),
+                        entity.getX(),
+                        entity.getY(),
+                        entity.getZ(),
+                        velocity.x,
+                        velocity.y,
+                        velocity.z);
+        this.ages[i] = entity.age;
+        this.decays[i] = entity.getDecay();
+        entity.setManaged(true);
+        this.proxies[i] = entity;
+    }
+
+    /**
+     * 弾道全体を発射したtickのうちに判定する。エンティティは生成しない。
+     *
+     * <p>弾道は {@link #tickBullet} と同じ運動モデルで先に求め、候補のエンティティは弾道全体を囲む範囲から一度だけ集める。
+     * 各区間は、通常の弾丸ならその区間を通過するtickに見えていたはずの状態まで巻き戻して判定する。
+     */
+    private void fireHitscan(Entity owner, BulletData bullet, Vec3d from, Vec3d velocity) {
+        var entityRecordManager =
+                ((HasEntityRecordManager) this.world).actionArms$getEntityRecordManager();
+        this.currentOwner = owner;
+        var path = this.path;
+        int segments =
+                path.trace(
+                        this.pathTracer,
+                        from.x,
+                        from.y,
+                        from.z,
+                        velocity.x,
+                        velocity.y,
+                        velocity.z);
+        if (segments == 0) {
+            this.currentOwner = null;
+            return;
+        }
+
+        double rewindTicks = getRewindTicks(owner, entityRecordManager);
+        // 弾道全体を囲む範囲。巻き戻し先で範囲に入るエンティティも拾えるよう、巻き戻す分だけ広げる
+        double minX = from.x;
+        double minY = from.y;
+        double minZ = from.z;
+        double maxX = from.x;
+        double maxY = from.y;
+        double maxZ = from.z;
+        for (int k = 0; k < segments; k++) {
+            double endX = path.x(k) + path.velX(k);
+            double endY = path.y(k) + path.velY(k);
+            double endZ = path.z(k) + path.velZ(k);
+            minX = Math.min(minX, endX);
+            minY = Math.min(minY, endY);
+            minZ = Math.min(minZ, endZ);
+            maxX = Math.max(maxX, endX);
+            maxY = Math.max(maxY, endY);
+            maxZ = Math.max(maxZ, endZ);
+        }
+        var pathBox =
+                new Box(
+                        minX - BULLET_HALF_SIZE,
+                        minY,
+                        minZ - BULLET_HALF_SIZE,
+                        maxX + BULLET_HALF_SIZE,
+                        maxY + BULLET_HALF_SIZE * 2,
+                        maxZ + BULLET_HALF_SIZE)
+                .expand(4.0 + Math.ceil(rewindTicks + 1) * MAX_REWIND_SPEED);
+        var candidates = this.world.getOtherEntities(null, pathBox, this.canHit);
+
+        var segmentCandidates = this.segmentCandidates;
+        for (int k = 0; k < segments; k++) {
+            double x = path.x(k);
+            double y = path.y(k);
+            double z = path.z(k);
+            double vx = path.velX(k);
+            double vy = path.velY(k);
+            double vz = path.velZ(k);
+            var hittableBox = getHittableBox(x, y, z, vx, vy, vz);
+            double segmentRewind = HitscanPath.segmentRewind(rewindTicks, k);
+            segmentCandidates.clear();
+            for (Entity candidate : candidates) {
+                if (canReach(candidate, hittableBox, segmentRewind, entityRecordManager)) {
+                    segmentCandidates.add(candidate);
+                }
+            }
+            if (segmentCandidates.isEmpty()) {
+                continue;
+            }
+            var result =
+                    getEntityCollision(
+                            new Vec3d(x, y, z),
+                            new Vec3d(path.endX(k), path.endY(k), path.endZ(k)),
+                            segmentCandidates,
+                            segmentRewind,
+                            entityRecordManager);
+            if (result != null
+                    && entityHit(
+                            result,
+                            bullet,
+                            null,
+                            owner,
+                            x,
+                            y,
+                            z,
+                            vx,
+                            vy,
+                            vz,
+                            segmentRewind,
+                            entityRecordManager)) {
+                break;
+            }
+        }
+        segmentCandidates.clear();
+        this.currentOwner = null;
+    }
+
+    public void tick() {
+        if (this.count == 0) {
+            return;
+        }
+        var entityRecordManager =
+                ((HasEntityRecordManager) this.world).actionArms$getEntityRecordManager();
+        entityRecordManager.buildGrid(this.entityGrid);
+        int i = 0;
+        while (i < this.count) {
+            if (tickBullet(i, entityRecordManager)) {
+                i++;
+            } else {
+                remove(i);
+            }
+        }
+        this.currentOwner = null;
+        this.entityGrid.clear();
+    }
+
+    /**
+     * @return 弾丸が残るならtrue
+     */
+    private boolean tickBullet(int i, EntityRecordManager entityRecordManager) {
+        var proxy = this.proxies[i];
+        if (proxy != null && proxy.isRemoved()) {
+            // コマンドやチャンクのアンロードで代理が消された
+            return false;
+        }
+        if (++this.ages[i] > this.decays[i]) {
+            return false;
+        }
+        double x = this.posX[i];
+        double y = this.posY[i];
+        double z = this.posZ[i];
+        // 読み込まれていない範囲では動かさない
+        if (!this.world.shouldTickEntity(this.mutablePos.set(x, y, z))) {
+            return false;
+        }
+        double vx = this.velX[i];
+        double vy = this.velY[i];
+        double vz = this.velZ[i];
+
+        // 現在の速度で移動した時に、物体(モブかブロック)とぶつかるかをチェック
+        var owner = getOwner(i);
+        this.currentOwner = owner;
+        var start = new Vec3d(x, y, z);
+        var end = new Vec3d(x + vx, y + vy, z + vz);
+        var hitResult = raycast(i, start, end, owner, entityRecordManager);
+
+        // ぶつかったらhit処理
+        if (hitResult.getType() != HitResult.Type.MISS
+                && hit(i, hitResult, owner, entityRecordManager)) {
+            return false;
+        }
+
+        // 移動処理
+        x += vx;
+        y += vy;
+        z += vz;
+        this.posX[i] = x;
+        this.posY[i] = y;
+        this.posZ[i] = z;
+
+        // 次tickのために速度を更新
+        vx *= 0.99f;
+        vy = vy * 0.99f - 0.01f;
+        vz *= 0.99f;
+        this.velX[i] = vx;
+        this.velY[i] = vy;
+        this.velZ[i] = vz;
+
+        if (proxy != null) {
+            proxy.setPosition(x, y, z);
+            proxy.setVelocity(vx, vy, vz);
+        } else if (isWatched(x, y, z)) {
+            spawnProxy(i);
+        }
+        return true;
+    }
+
+    private HitResult raycast(
+            int i,
+            Vec3d start,
+            Vec3d end,
+            @Nullable Entity owner,
+            EntityRecordManager entityRecordManager) {
+        // 最初にブロックとの当たり判定をチェックする
+        // RaycastContextはエンティティ必須のため、代理がいなければ所有者で代用する
+        var contextEntity = this.proxies[i] != null ? this.proxies[i] : owner;
+        HitResult bResult = null;
+        if (contextEntity != null) {
+            bResult =
+                    this.world.raycast(
+                            new RaycastContext(
+                                    start,
+                                    end,
+                                    RaycastContext.ShapeType.COLLIDER,
+                                    RaycastContext.FluidHandling.NONE,
+                                    contextEntity));
+            if (bResult.getType() != HitResult.Type.MISS) {
+                end = bResult.getPos();
+            }
+        }
+        var hittableBox =
+                getHittableBox(
+                        this.posX[i],
+                        this.posY[i],
+                        this.posZ[i],
+                        this.velX[i],
+                        this.velY[i],
+                        this.velZ[i]);
+        var eResult =
+                getEntityCollision(
+                        start,
+                        end,
+                        this.entityGrid.query(hittableBox, this.canHit),
+                        getRewindTicks(owner, entityRecordManager),
+                        entityRecordManager);
+        if (eResult != null) {
+            return eResult;
+        }
+        return bResult != null
+                ? bResult
+                : BlockHitResult.createMissed(
+                        end,
+                        Direction.getFacing(end.x - start.x, end.y - start.y, end.z - start.z),
+                        BlockPos.ofFloored(end));
+    }
+
+    private static Box getHittableBox(
+            double x, double y, double z, double vx, double vy, double vz) {
+        return new Box(
+                        x - BULLET_HALF_SIZE,
+                        y,
+                        z - BULLET_HALF_SIZE,
+                        x + BULLET_HALF_SIZE,
+                        y + BULLET_HALF_SIZE * 2,
+                        z + BULLET_HALF_SIZE)
+                .stretch(vx, vy, vz)
+                .expand(4.0);
+    }
+
+    /**
+     * 巻き戻して判定した時に、エンティティが範囲に入りうるか。
+     *
+     * <p>判定には巻き戻し先とその1tick前の記録、記録がなければ現在の状態を使うため、それらの当たり判定を全て見る。
+     */
+    private boolean canReach(
+            Entity entity,
+            Box hittableBox,
+            double rewindTicks,
+            EntityRecordManager entityRecordManager) {
+        if (entity.getBoundingBox().intersects(hittableBox)) {
+            return true;
+        }
+        var bounds = this.boundsRecord;
+        return entityRecordManager.getHistoryBounds(
+                        entity.getId(),
+                        (int) Math.floor(rewindTicks),
+                        (int) Math.ceil(rewindTicks) + 1,
+                        bounds)
+                && hittableBox.intersects(
+                        bounds.minX,
+                        bounds.minY,
+                        bounds.minZ,
+                        bounds.maxX,
+                        bounds.maxY,
+                        bounds.maxZ);
+    }
+
+    // EntityRecordベースの連続衝突判定
+    private BulletEntity.@Nullable ExtendEntityHitResult getEntityCollision(
+            Vec3d start,
+            Vec3d end,
+            List<Entity> candidates,
+            double rewindTicks,
+            EntityRecordManager entityRecordManager) {
+        double nearestTime = Double.MAX_VALUE;
+        Entity nearestEntity = null;
+        var oldRecord = this.oldRecord;
+        var newRecord = this.newRecord;
+        for (Entity entity : candidates) {
+            // 過去の状態を取得して、クライアント/サーバーラグを補償する
+            boolean hasOlderTick =
+                    entityRecordManager.getInterpolatedRecord(
+                            entity.getId(), rewindTicks + 1, oldRecord);
+            boolean hasOldTick =
+                    entityRecordManager.getInterpolatedRecord(
+                            entity.getId(), rewindTicks, newRecord);
+
+            // 理想的なケース：巻き戻し先とその1tick前のデータが両方存在すればそのまま使う
+            if (!hasOldTick) {
+                // 巻き戻し先のデータがない場合：速度は0として扱う
+                oldRecord.set(entity);
+                newRecord.set(oldRecord);
+            } else if (!hasOlderTick) {
+                // 1tick前のデータがない場合：巻き戻し先 → 現在の速度を計算
+                oldRecord.set(newRecord);
+                newRecord.set(entity);
+            }
+
+            var result = this.collisionResult;
+            BulletEntity.CollisionDetector.detectCollision(
+                    start.x,
+                    start.y,
+                    start.z,
+                    COLLISION_SIZE,
+                    end.x - start.x,
+                    end.y - start.y,
+                    end.z - start.z,
+                    oldRecord.minX(),
+                    oldRecord.minY(),
+                    oldRecord.minZ(),
+                    oldRecord.maxX(),
+                    oldRecord.maxY(),
+                    oldRecord.maxZ(),
+                    newRecord.posX() - oldRecord.posX(),
+                    newRecord.posY() - oldRecord.posY(),
+                    newRecord.posZ() - oldRecord.posZ(),
+                    result);
+            // ヒットして、なおかつ最も近いなら更新
+            if (result.isCollisionCurrentTick() && result.collisionTime() < nearestTime) {
+                nearestEntity = entity;
+                nearestTime = result.collisionTime();
+            }
+        }
+        if (nearestEntity == null) {
+            return null;
+        }
+        return new BulletEntity.ExtendEntityHitResult(nearestEntity, nearestTime);
+    }
+
+    private boolean canHit(Entity entity) {
+        var owner = this.currentOwner;
+        return entity != owner
+                && (owner == null
+                        || !owner.isConnectedThroughVehicle(entity)
+                                && owner.getRootVehicle() != entity)
+                && entity.isAttackable()
+                && entity.canBeHitByProjectile();
+    }
+
+    /**
+     * @return 弾丸が消えるならtrue
+     */
+    private boolean hit(
+            int i,
+            HitResult result,
+            @Nullable Entity owner,
+            EntityRecordManager entityRecordManager) {
+        if (result.getType() == HitResult.Type.ENTITY) {
+            return entityHit(
+                    (BulletEntity.ExtendEntityHitResult) result,
+                    this.bullets[i],
+                    this.proxies[i],
+                    owner,
+                    this.posX[i],
+                    this.posY[i],
+                    this.posZ[i],
+                    this.velX[i],
+                    this.velY[i],
+                    this.velZ[i],
+                    getRewindTicks(owner, entityRecordManager),
+                    entityRecordManager);
+        }
+        // ブロックに当たれば消える
+        return result.getType() == HitResult.Type.BLOCK;
+    }
+
+    private boolean entityHit(
+            BulletEntity.ExtendEntityHitResult result,
+            BulletData data,
+            @Nullable BulletEntity proxy,
+            @Nullable Entity owner,
+            double x,
+            double y,
+            double z,
+            double vx,
+            double vy,
+            double vz,
+            double rewindTicks,
+            EntityRecordManager entityRecordManager) {
+        var hitTarget = result.getEntity();
+        boolean isHeadshot =
+                isHeadshot(result, x, y, z, vx, vy, vz, rewindTicks, entityRecordManager);
+        float damage = isHeadshot ? data.headshotDamage() : data.damage();
+
+        if (hitTarget.damage(createDamageSource(proxy, owner), damage)) {
+            if (owner instanceof ServerPlayerEntity player) {
+                boolean kill = !hitTarget.isAlive();
+                var state = BulletHitHudState.State.of(kill, isHeadshot);
+                ServerHudManager.INSTANCE.syncHudState(
+                        player,
+                        "bullet_hit",
+                        HudType.BULLET_HIT,
+                        BulletHitHudState.of(state),
+                        true);
+            }
+
+            return true;
+        }
+
+        return false;
+    }
+
+    private boolean isHeadshot(
+            BulletEntity.ExtendEntityHitResult result,
+            double x,
+            double y,
+            double z,
+            double vx,
+            double vy,
+            double vz,
+            double rewindTicks,
+            EntityRecordManager entityRecordManager) {
+        var hitTarget = result.getEntity();
+        var olderRecord = this.oldRecord;
+        var oldRecord = this.newRecord;
+        boolean hasOlderTick =
+                entityRecordManager.getInterpolatedRecord(
+                        hitTarget.getId(), rewindTicks + 1, olderRecord);
+        boolean hasOldTick =
+                entityRecordManager.getInterpolatedRecord(
+                        hitTarget.getId(), rewindTicks, oldRecord);
+
+        var record = this.hitRecord;
+        if (hasOlderTick && hasOldTick) {
+            // Linear interpolation between older and old records using hitTime
+            record.lerp(olderRecord, oldRecord, result.getHitTime());
+        } else if (hasOldTick) {
+            record.set(oldRecord);
+        } else {
+            record.set(hitTarget);
+        }
+
+        var hitTargetBox = record.boundingBox();
+        double targetWidth = hitTargetBox.maxX - hitTargetBox.minX;
+        double targetHeight = hitTargetBox.maxY - hitTargetBox.minY;
+        // 身長1以下は全身ヘッドショット判定
+        if (targetHeight <= 1) {
+            return true;
+        }
+        if (hitTarget instanceof EnderDragonPart part) {
+            return part.name.equals("head");
+        }
+        // 横幅と高さが一定以下なら、頭部判定を作成し、それを通過していればヘッドショット判定とする
+        if (targetWidth <= 2 && targetHeight <= 4) {
+            double weakBoxSize = targetWidth;
+            if (weakBoxSize > 1) {
+                weakBoxSize = 1 + (weakBoxSize - 1) * 0.5;
+            }
+            weakBoxSize *= 0.8;
+            Vec3d eyePos = record.eyePos();
+            var weakBox = Box.of(eyePos, weakBoxSize, weakBoxSize, weakBoxSize);
+            var start = new Vec3d(x, y, z);
+            var end = start.add(vx * 2, vy * 2, vz * 2);
+            return weakBox.raycast(start, end).isPresent();
+        }
+
+        // 大型の敵ならヘッドショット判定無しとする (仮)
+        return false;
+    }
+
+    /**
+     * ラグ補償で巻き戻すtick数を計算する。
+     *
+     * <p>クライアントの補間と入力処理の遅れ分を基本値とし、所有者がプレイヤーならその通信遅延（往復）を加える。
+     * 遅延は設定の上限までしか補償しない。履歴はその上限まで巻き戻せる長さで確保している。
+     */
+    private static double getRewindTicks(
+            @Nullable Entity owner, EntityRecordManager entityRecordManager) {
+        var config = ActionArms.getConfig().server;
+        double rewindTicks = config.lagCompensationBaseTicks;
+        if (owner instanceof ServerPlayerEntity player) {
+            int ping = player.pingMilliseconds;
+            if (ping > config.lagCompensationMaxPing) {
+                ActionArms.LOGGER.debug(
+                        "Lag compensation for {} capped at {} ms (ping {} ms)",
+                        player.getName().getString(),
+                        config.lagCompensationMaxPing,
+                        ping);
+                ping = config.lagCompensationMaxPing;
+            }
+            rewindTicks += ping / 50.0;
+        }
+        // 補間のため1tick分の余裕を残す。設定を再起動せずに変えた場合だけ効く
+        return MathHelper.clamp(rewindTicks, 0, entityRecordManager.getHistoryLength() - 2);
+    }
+
+    private DamageSource createDamageSource(@Nullable BulletEntity proxy, @Nullable Entity owner) {
+        var registry = ((DamageSourcesAccessor) this.world.getDamageSources()).getRegistry();
+        return new DamageSource(registry.entryOf(Registration.BULLET_DAMAGE_TYPE), proxy, owner);
+    }
+
+    public @Nullable Entity getOwner(int i) {
+        var owner = this.owners[i];
+        if (owner != null && !owner.isRemoved()) {
+            return owner;
+        }
+        if (this.ownerIds[i] != null) {
+            owner = this.world.getEntity(this.ownerIds[i]);
+            this.owners[i] = owner;
+            return owner;
+        }
+        return null;
+    }
+
+    /** 描画する必要があるか。いずれかのプレイヤーが弾丸の追跡範囲にいればtrue */
+    private boolean isWatched(double x, double y, double z) {
+        double range = Registration.BULLET_ENTITY.get().getMaxTrackDistance() * 16;
+        double rangeSq = range * range;
+        for (var player : this.world.getPlayers()) {
+            if (player.squaredDistanceTo(x, y, z) < rangeSq) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void spawnProxy(int i) {
+        var pos = new Vec3d(this.posX[i], this.posY[i], this.posZ[i]);
+        var velocity = new Vec3d(this.velX[i], this.velY[i], this.velZ[i]);
+        var proxy = this.proxyPool.poll();
+        if (proxy != null) {
+            proxy.reuse(getOwner(i), this.bullets[i], pos, velocity);
+        } else {
+            proxy =
+                    BulletEntity.of(
+                            Registration.BULLET_ENTITY.get(),
+                            this.world,
+                            getOwner(i),
+                            this.bullets[i],
+                            pos,
+                            velocity);
+        }
+        proxy.setManaged(true);
+        this.proxies[i] = proxy;
+        this.world.spawnEntity(proxy);
+    }
+
+    private int add(
+            @Nullable Entity owner,
+            BulletData bullet,
+            double x,
+            double y,
+            double z,
+            double vx,
+            double vy,
+            double vz) {
+        if (this.count == this.posX.length) {
+            grow();
+        }
+        int i = this.count++;
+        this.posX[i] = x;
+        this.posY[i] = y;
+        this.posZ[i] = z;
+        this.velX[i] = vx;
+        this.velY[i] = vy;
+        this.velZ[i] = vz;
+        this.ages[i] = 0;
+        this.decays[i] = DEFAULT_DECAY;
+        this.bullets[i] = bullet;
+        this.owners[i] = owner;
+        this.ownerIds[i] = owner != null ? owner.getUuid() : null;
+        this.proxies[i] = null;
+        return i;
+    }
+
+    /** 末尾の弾丸で穴を埋めて削除する。 */
+    private void remove(int i) {
+        var proxy = this.proxies[i];
+        if (proxy != null && !proxy.isRemoved()) {
+            proxy.discard();
+            if (this.proxyPool.size() < MAX_POOL_SIZE) {
+                this.proxyPool.push(proxy);
+            }
+        }
+        int last = --this.count;
+        this.posX[i] = this.posX[last];
+        this.posY[i] = this.posY[last];
+        this.posZ[i] = this.posZ[last];
+        this.velX[i] = this.velX[last];
+        this.velY[i] = this.velY[last];
+        this.velZ[i] = this.velZ[last];
+        this.ages[i] = this.ages[last];
+        this.decays[i] = this.decays[last];
+        this.bullets[i] = this.bullets[last];
+        this.owners[i] = this.owners[last];
+        this.ownerIds[i] = this.ownerIds[last];
+        this.proxies[i] = this.proxies[last];
+        this.bullets[last] = null;
+        this.owners[last] = null;
+        this.ownerIds[last] = null;
+        this.proxies[last] = null;
+    }
+
+    private void grow() {
+        int capacity = this.posX.length * 2;
+        this.posX = Arrays.copyOf(this.posX, capacity);
+        this.posY = Arrays.copyOf(this.posY, capacity);
+        this.posZ = Arrays.copyOf(this.posZ, capacity);
+        this.velX = Arrays.copyOf(this.velX, capacity);
+        this.velY = Arrays.copyOf(this.velY, capacity);
+        this.velZ = Arrays.copyOf(this.velZ, capacity);
+        this.ages = Arrays.copyOf(this.ages, capacity);
+        this.decays = Arrays.copyOf(this.decays, capacity);
+        this.bullets = Arrays.copyOf(this.bullets, capacity);
+        this.owners = Arrays.copyOf(this.owners, capacity);
+        this.ownerIds = Arrays.copyOf(this.ownerIds, capacity);
+        this.proxies = Arrays.copyOf(this.proxies, capacity);
+    }
+
+    public int getCount() {
+        return this.count;
+    }
+
+    public double getX(int i) {
+        return this.posX[i];
+    }
+
+    public double getY(int i) {
+        return this.posY[i];
+    }
+
+    public double getZ(int i) {
+        return this.posZ[i];
+    }
+
+    /** 即着弾の弾道を、このワールドのブロックで止める。 */
+    private final class WorldPathTracer implements HitscanPath.Tracer {
+        @Override
+        public boolean isLoaded(double x, double y, double z) {
+            return world.shouldTickEntity(mutablePos.set(x, y, z));
+        }
+
+        @Override
+        public @Nullable Vec3d raycast(Vec3d start, Vec3d end) {
+            var result =
+                    world.raycast(
+                            new RaycastContext(
+                                    start,
+                                    end,
+                                    RaycastContext.ShapeType.COLLIDER,
+                                    RaycastContext.FluidHandling.NONE,
+                                    currentOwner));
+            return result.getType() != HitResult.Type.MISS ? result.getPos() : null;
+        }
+    }
+}
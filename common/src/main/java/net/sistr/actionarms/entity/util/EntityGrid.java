@@ -0,0 +1,169 @@
+package net.sistr.actionarms.entity.util;
+
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.boss.dragon.EnderDragonEntity;
+import net.minecraft.entity.boss.dragon.EnderDragonPart;
+import net.minecraft.util.math.Box;
+import net.minecraft.util.math.ChunkSectionPos;
+
+/**
+ * 弾丸の当たり判定の候補を探すための一様格子。
+ *
+ * <p>tickの最初に一度だけ {@link EntityRecordManager} の記録から構築し、そのtickの全ての弾丸から参照する。エンティティは当たり判定が重なる全てのセルに登録し、
+ * 各セルの登録はint配列の連結リストで持つ。
+ */
+public class EntityGrid {
+    // セルの一辺 (1 << CELL_SHIFT ブロック)
+    private static final int CELL_SHIFT = 3;
+    private static final int INITIAL_CAPACITY = 128;
+    private static final int NONE = -1;
+
+    // セル -> 最初のリンク
+    private final Long2IntOpenHashMap cellHeads = new Long2IntOpenHashMap(INITIAL_CAPACITY);
+    private final List<Entity> result = new ArrayList<>();
+    // リンク -> 次のリンク / エントリ
+    private int[] linkNext = new int[INITIAL_CAPACITY];
+    private int[] linkEntries = new int[INITIAL_CAPACITY];
+    private int linkCount;
+    private Entity[] entities = new Entity[INITIAL_CAPACITY];
+    // [エントリ * 6] minX, minY, minZ, maxX, maxY, maxZ
+    private double[] boxes = new double[INITIAL_CAPACITY * 6];
+    // 同じ問い合わせで二重に返さないための印
+    private int[] visited = new int[INITIAL_CAPACITY];
+    private int entityCount;
+    private int queryStamp;
+
+    public EntityGrid() {
+        this.cellHeads.defaultReturnValue(NONE);
+    }
+
+    public void clear() {
+        this.cellHeads.clear();
+        Arrays.fill(this.entities, 0, this.entityCount, null);
+        this.linkCount = 0;
+        this.entityCount = 0;
+        this.queryStamp = 0;
+    }
+
+    public void add(
+            Entity entity,
+            double minX,
+            double minY,
+            double minZ,
+            double maxX,
+            double maxY,
+            double maxZ) {
+        if (this.entityCount == this.entities.length) {
+            int capacity = this.entities.length * 2;
+            this.entities = Arrays.copyOf(this.entities, capacity);
+            this.boxes = Arrays.copyOf(this.boxes, capacity * 6);
+            this.visited = Arrays.copyOf(this.visited, capacity);
+        }
+        int entry = this.entityCount++;
+        this.entities[entry] = entity;
+        this.visited[entry] = 0;
+        int offset = entry * 6;
+        this.boxes[offset] = minX;
+        this.boxes[offset + 1] = minY;
+        this.boxes[offset + 2] = minZ;
+        this.boxes[offset + 3] = maxX;
+        this.boxes[offset + 4] = maxY;
+        this.boxes[offset + 5] = maxZ;
+
+        int maxCellX = toCell(maxX);
+        int maxCellY = toCell(maxY);
+        int maxCellZ = toCell(maxZ);
+        for (int x = toCell(minX); x <= maxCellX; x++) {
+            for (int y = toCell(minY); y <= maxCellY; y++) {
+                for (int z = toCell(minZ); z <= maxCellZ; z++) {
+                    link(ChunkSectionPos.asLong(x, y, z), entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * 範囲と当たり判定が重なるエンティティを返す。{@link net.minecraft.world.World#getOtherEntities} と同様に、
+     * エンダードラゴンは部位も候補に含める。
+     *
+     * @return 使い回しのリスト。次の問い合わせまでに使い終わること
+     */
+    public List<Entity> query(Box box, Predicate<Entity> predicate) {
+        this.result.clear();
+        if (this.entityCount == 0) {
+            return this.result;
+        }
+        int stamp = ++this.queryStamp;
+        int maxCellX = toCell(box.maxX);
+        int maxCellY = toCell(box.maxY);
+        int maxCellZ = toCell(box.maxZ);
+        for (int x = toCell(box.minX); x <= maxCellX; x++) {
+            for (int y = toCell(box.minY); y <= maxCellY; y++) {
+                for (int z = toCell(box.minZ); z <= maxCellZ; z++) {
+                    int link = this.cellHeads.get(ChunkSectionPos.asLong(x, y, z));
+                    for (; link != NONE; link = this.linkNext[link]) {
+                        int entry = this.linkEntries[link];
+                        if (this.visited[entry] == stamp) {
+                            continue;
+                        }
+                        this.visited[entry] = stamp;
+                        if (intersects(entry, box)) {
+                            collect(this.entities[entry], predicate);
+                        }
+                    }
+                }
+            }
+        }
+        return this.result;
+    }
+
+    private void collect(Entity entity, Predicate<Entity> predicate) {
+        if (entity.isRemoved()) {
+            return;
+        }
+        if (predicate.test(entity)) {
+            this.result.add(entity);
+        }
+        if (entity instanceof EnderDragonEntity dragon) {
+            for (EnderDragonPart part : dragon.getBodyParts()) {
+                if (predicate.test(part)) {
+                    this.result.add(part);
+                }
+            }
+        }
+    }
+
+    private boolean intersects(int entry, Box box) {
+        int offset = entry * 6;
+        return this.boxes[offset] < box.maxX
+                && this.boxes[offset + 3] > box.minX
+                && this.boxes[offset + 1] < box.maxY
+                && this.boxes[offset + 4] > box.minY
+                && this.boxes[offset + 2] < box.maxZ
+                && this.boxes[offset + 5] > box.minZ;
+    }
+
+    private void link(long cell, int entry) {
+        if (this.linkCount == this.linkNext.length) {
+            int capacity = this.linkNext.length * 2;
+            this.linkNext = Arrays.copyOf(this.linkNext, capacity);
+            this.linkEntries = Arrays.copyOf(this.linkEntries, capacity);
+        }
+        int link = this.linkCount++;
+        this.linkEntries[link] = entry;
+        this.linkNext[link] = this.cellHeads.put(cell, link);
+    }
+
+    private static int toCell(double coord) {
+        return (int) Math.floor(coord) >> CELL_SHIFT;
+    }
+
+    public int size() {
+        return this.entityCount;
+    }
+}
@@ -1,49 +1,523 @@
 package net.sistr.actionarms.entity.util;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Optional;
-import java.util.UUID;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import java.util.Arrays;
+import java.util.function.Consumer;
 import net.minecraft.entity.Entity;
+import net.minecraft.entity.LivingEntity;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.math.Box;
 import net.minecraft.util.math.Vec3d;
 import net.minecraft.world.EntityList;
+import net.sistr.actionarms.ActionArms;
+import net.sistr.actionarms.item.GunItem;
+import net.sistr.actionarms.mixin.ServerWorldInvoker;
+import org.jetbrains.annotations.Nullable;
 
+/**
+ * ラグ補償用にエンティティの過去の位置を保持する。
+ *
+ * <p>エンティティのネットワークIDごとに固定のスロットを割り当て、tick毎の座標をスロット位置の {@code double[]} に直接書き込む。
+ * スロットは一度割り当てられると、記録されなくなってから履歴長分のtickが過ぎるまで再利用されないため、記録時に割り当ては発生しない。
+ *
+ * <p>設定で有効な場合、銃を持つエンティティと弾丸、弾丸を撃った者の周囲（戦闘範囲）にいるエンティティだけを記録する。戦闘範囲外のエンティティには記録が残らないため、
+ * 参照側は記録がない場合に現在の状態で代用すること。
+ */
 public class EntityRecordManager {
-    private static final EntityRecord[] ENTITY_RECORDS = new EntityRecord[0];
-    private final Map<UUID, EntityRecord>[] recordMaps = new Map[10];
+    private static final int INITIAL_CAPACITY = 128;
+    private static final int NO_SLOT = -1;
+
+    // 1スロット分のレイアウト: pos(3) + boundingBox(6) + eyeY(1)
+    static final int STRIDE = 10;
+    static final int POS_X = 0;
+    static final int POS_Y = 1;
+    static final int POS_Z = 2;
+    static final int MIN_X = 3;
+    static final int MIN_Y = 4;
+    static final int MIN_Z = 5;
+    static final int MAX_X = 6;
+    static final int MAX_Y = 7;
+    static final int MAX_Z = 8;
+    static final int EYE_Y = 9;
+
+    private final int historyLength;
+    private final Int2IntOpenHashMap slotById = new Int2IntOpenHashMap(INITIAL_CAPACITY);
+    // [履歴インデックス][スロット * STRIDE]
+    private final double[][] values;
+    // [履歴インデックス][スロット] そのスロットを書き込んだtick。一致しなければ未記録
+    private final long[][] recordedTicks;
+    // 補間時の読み出し先
+    private final EntityRecord interpolationRecord = new EntityRecord();
+    // 格子に登録する範囲の読み出し先
+    private final EntityRecord boundsRecord = new EntityRecord();
+    private int[] slotIds;
+    // スロットを最後に記録したエンティティ
+    private Entity[] slotEntities;
+    private long[] lastRecordedTicks;
+    private int[] freeSlots;
+    private int freeCount;
+    private int slotCount;
     private int index;
+    private long tick;
+    private final InterestArea interestArea = new InterestArea();
+    private final Consumer<Entity> interestCollector = this::collectInterest;
+    private final Consumer<Entity> interestRecorder = this::recordOnce;
 
-    public EntityRecordManager() {
-        for (int i = 0; i < recordMaps.length; i++) {
-            recordMaps[i] = new HashMap<>(100);
+    /**
+     * @param historyLength 保持するtick数。補間のため最低2tick保持する
+     */
+    public EntityRecordManager(int historyLength) {
+        this.historyLength = Math.max(2, historyLength);
+        this.values = new double[this.historyLength][];
+        this.recordedTicks = new long[this.historyLength][];
+        this.slotById.defaultReturnValue(NO_SLOT);
+        for (int i = 0; i < this.historyLength; i++) {
+            this.values[i] = new double[INITIAL_CAPACITY * STRIDE];
+            this.recordedTicks[i] = new long[INITIAL_CAPACITY];
+            Arrays.fill(this.recordedTicks[i], Long.MIN_VALUE);
         }
+        this.slotIds = new int[INITIAL_CAPACITY];
+        this.slotEntities = new Entity[INITIAL_CAPACITY];
+        this.lastRecordedTicks = new long[INITIAL_CAPACITY];
+        this.freeSlots = new int[INITIAL_CAPACITY];
     }
 
     public void preWorldTick(ServerWorld world, EntityList entityList) {
-        index = (index + 1) % recordMaps.length;
-        recordMaps[index].clear();
-        entityList.forEach(e -> record(recordMaps[index], e));
+        nextTick();
+        var config = ActionArms.getConfig().server;
+        if (!config.lagCompensationInterestOnly) {
+            entityList.forEach(this::record);
+            return;
+        }
+        recordInterestArea(world, entityList, config.lagCompensationInterestRadius);
+    }
+
+    /**
+     * 戦闘範囲にいるエンティティのみ記録する。
+     *
+     * <p>範囲はセクション単位でまとめてから走査するため、弾丸や射手が密集しても走査は増えない。
+     */
+    private void recordInterestArea(ServerWorld world, EntityList entityList, double radius) {
+        var area = this.interestArea;
+        area.clear();
+        entityList.forEach(this.interestCollector);
+        var bulletManager = ((HasBulletManager) world).actionArms$getBulletManager();
+        for (int i = 0; i < bulletManager.getCount(); i++) {
+            var owner = bulletManager.getOwner(i);
+            addBulletInterest(
+                    area,
+                    bulletManager.getX(i),
+                    bulletManager.getY(i),
+                    bulletManager.getZ(i),
+                    owner != null && owner.getWorld() == world ? owner.getPos() : null);
+        }
+        if (area.isEmpty()) {
+            return;
+        }
+        var entityLookup = ((ServerWorldInvoker) world).invokeGetEntityLookup();
+        area.forEachBox(radius, box -> entityLookup.forEachIntersects(box, this.interestRecorder));
+    }
+
+    /**
+     * 弾丸の周囲と、撃った者の周囲を戦闘範囲に加える。
+     *
+     * <p>弾丸は戦闘範囲の半径より遠くまで飛ぶため、弾丸自身の位置も要る。同じセクションの中心は1つにまとまるため、弾丸が多くても範囲はほとんど増えない。
+     */
+    static void addBulletInterest(
+            InterestArea area, double x, double y, double z, @Nullable Vec3d ownerPos) {
+        area.add(x, y, z);
+        if (ownerPos != null) {
+            area.add(ownerPos.x, ownerPos.y, ownerPos.z);
+        }
     }
 
-    public Optional<EntityRecord> getRecord(UUID id, int prev) {
-        int targetIndex = (index - prev + recordMaps.length) % recordMaps.length;
-        return Optional.ofNullable(recordMaps[targetIndex].get(id));
+    private void collectInterest(Entity entity) {
+        if (isInterestSource(entity)) {
+            this.interestArea.add(entity.getX(), entity.getY(), entity.getZ());
+        }
     }
 
-    public void record(Map<UUID, EntityRecord> recordMap, Entity entity) {
-        recordMap.put(
-                entity.getUuid(),
-                new EntityRecord(
-                        entity.getUuid(),
-                        entity.getPos(),
-                        entity.getBoundingBox(),
-                        entity.getEyePos()));
+    private static boolean isInterestSource(Entity entity) {
+        return entity instanceof LivingEntity living
+                && (living.getMainHandStack().getItem() instanceof GunItem
+                        || living.getOffHandStack().getItem() instanceof GunItem);
+    }
+
+    /** 戦闘範囲が重なっている場合に、同じtickで二重に記録しないようにする。 */
+    private void recordOnce(Entity entity) {
+        int slot = this.slotById.get(entity.getId());
+        if (slot != NO_SLOT && this.recordedTicks[this.index][slot] == this.tick) {
+            return;
+        }
+        recordEntity(entity);
+    }
+
+    /** 記録先を次のtickへ進める。一定間隔で長期間記録されていないスロットを解放する。 */
+    void nextTick() {
+        this.tick++;
+        this.index = (int) (this.tick % this.historyLength);
+        if (this.index == 0) {
+            releaseStaleSlots();
+        }
+    }
+
+    public void record(Entity entity) {
+        recordEntity(entity);
         for (Entity passenger : entity.getPassengerList()) {
-            record(recordMap, passenger);
+            record(passenger);
         }
     }
 
-    public record EntityRecord(UUID uuid, Vec3d pos, Box boundingBox, Vec3d eyePos) {}
+    private void recordEntity(Entity entity) {
+        var box = entity.getBoundingBox();
+        int slot =
+                record(
+                        entity.getId(),
+                        entity.getX(),
+                        entity.getY(),
+                        entity.getZ(),
+                        box.minX,
+                        box.minY,
+                        box.minZ,
+                        box.maxX,
+                        box.maxY,
+                        box.maxZ,
+                        entity.getEyeY());
+        this.slotEntities[slot] = entity;
+    }
+
+    /**
+     * @return 書き込んだスロット
+     */
+    int record(
+            int id,
+            double x,
+            double y,
+            double z,
+            double minX,
+            double minY,
+            double minZ,
+            double maxX,
+            double maxY,
+            double maxZ,
+            double eyeY) {
+        int slot = getOrAssignSlot(id);
+        var data = this.values[this.index];
+        int offset = slot * STRIDE;
+        data[offset + POS_X] = x;
+        data[offset + POS_Y] = y;
+        data[offset + POS_Z] = z;
+        data[offset + MIN_X] = minX;
+        data[offset + MIN_Y] = minY;
+        data[offset + MIN_Z] = minZ;
+        data[offset + MAX_X] = maxX;
+        data[offset + MAX_Y] = maxY;
+        data[offset + MAX_Z] = maxZ;
+        data[offset + EYE_Y] = eyeY;
+        this.recordedTicks[this.index][slot] = this.tick;
+        this.lastRecordedTicks[slot] = this.tick;
+        return slot;
+    }
+
+    /**
+     * 現在tickに記録したエンティティを格子に登録し直す。
+     *
+     * <p>巻き戻しはどのtickの記録も参照しうるため、保持している全ての記録の当たり判定を囲む範囲で登録する。
+     */
+    public void buildGrid(EntityGrid grid) {
+        grid.clear();
+        var ticks = this.recordedTicks[this.index];
+        var bounds = this.boundsRecord;
+        for (int slot = 0; slot < this.slotCount; slot++) {
+            var entity = this.slotEntities[slot];
+            if (entity == null || ticks[slot] != this.tick) {
+                continue;
+            }
+            unionBounds(slot, 0, this.historyLength - 1, bounds);
+            grid.add(
+                    entity,
+                    bounds.minX,
+                    bounds.minY,
+                    bounds.minZ,
+                    bounds.maxX,
+                    bounds.maxY,
+                    bounds.maxZ);
+        }
+    }
+
+    /**
+     * 指定した範囲のtickの記録について、当たり判定を全て囲む範囲を読み出す。座標と目の高さは書き込まない。
+     *
+     * @param id エンティティのネットワークID
+     * @param newest 最も新しい記録が何tick前か
+     * @param oldest 最も古い記録が何tick前か
+     * @param out 読み出し先
+     * @return 範囲内に記録が1つでもあり、outに書き込まれたなら true
+     */
+    public boolean getHistoryBounds(int id, int newest, int oldest, EntityRecord out) {
+        int slot = this.slotById.get(id);
+        if (slot == NO_SLOT) {
+            return false;
+        }
+        return unionBounds(
+                slot, Math.max(0, newest), Math.min(oldest, this.historyLength - 1), out);
+    }
+
+    private boolean unionBounds(int slot, int newest, int oldest, EntityRecord out) {
+        boolean found = false;
+        int offset = slot * STRIDE;
+        for (int prev = newest; prev <= oldest; prev++) {
+            long targetTick = this.tick - prev;
+            int targetIndex = (int) Math.floorMod(targetTick, (long) this.historyLength);
+            if (this.recordedTicks[targetIndex][slot] != targetTick) {
+                continue;
+            }
+            var data = this.values[targetIndex];
+            if (!found) {
+                out.minX = data[offset + MIN_X];
+                out.minY = data[offset + MIN_Y];
+                out.minZ = data[offset + MIN_Z];
+                out.maxX = data[offset + MAX_X];
+                out.maxY = data[offset + MAX_Y];
+                out.maxZ = data[offset + MAX_Z];
+                found = true;
+                continue;
+            }
+            out.minX = Math.min(out.minX, data[offset + MIN_X]);
+            out.minY = Math.min(out.minY, data[offset + MIN_Y]);
+            out.minZ = Math.min(out.minZ, data[offset + MIN_Z]);
+            out.maxX = Math.max(out.maxX, data[offset + MAX_X]);
+            out.maxY = Math.max(out.maxY, data[offset + MAX_Y]);
+            out.maxZ = Math.max(out.maxZ, data[offset + MAX_Z]);
+        }
+        return found;
+    }
+
+    /**
+     * 指定tick前の記録を読み出す。
+     *
+     * @param id エンティティのネットワークID
+     * @param prev 何tick前の記録か。0で現在tickの記録
+     * @param out 読み出し先
+     * @return 記録が存在し、outに書き込まれたなら true
+     */
+    public boolean getRecord(int id, int prev, EntityRecord out) {
+        if (prev < 0 || prev >= this.historyLength) {
+            return false;
+        }
+        int slot = this.slotById.get(id);
+        if (slot == NO_SLOT) {
+            return false;
+        }
+        long targetTick = this.tick - prev;
+        int targetIndex = (int) Math.floorMod(targetTick, (long) this.historyLength);
+        if (this.recordedTicks[targetIndex][slot] != targetTick) {
+            return false;
+        }
+        var data = this.values[targetIndex];
+        int offset = slot * STRIDE;
+        out.posX = data[offset + POS_X];
+        out.posY = data[offset + POS_Y];
+        out.posZ = data[offset + POS_Z];
+        out.minX = data[offset + MIN_X];
+        out.minY = data[offset + MIN_Y];
+        out.minZ = data[offset + MIN_Z];
+        out.maxX = data[offset + MAX_X];
+        out.maxY = data[offset + MAX_Y];
+        out.maxZ = data[offset + MAX_Z];
+        out.eyeY = data[offset + EYE_Y];
+        return true;
+    }
+
+    /**
+     * 指定tick前の記録を、前後の記録を線形補間して読み出す。片方の記録しかない場合はそちらを使う。
+     *
+     * @param id エンティティのネットワークID
+     * @param prev 何tick前の記録か。小数部分はtick間の補間に使う
+     * @param out 読み出し先
+     * @return 記録が存在し、outに書き込まれたなら true
+     */
+    public boolean getInterpolatedRecord(int id, double prev, EntityRecord out) {
+        int newer = (int) Math.floor(prev);
+        double t = prev - newer;
+        boolean hasNewer = getRecord(id, newer, out);
+        if (t <= 0) {
+            return hasNewer;
+        }
+        var older = this.interpolationRecord;
+        if (!getRecord(id, newer + 1, older)) {
+            return hasNewer;
+        }
+        if (!hasNewer) {
+            out.set(older);
+            return true;
+        }
+        out.lerp(out, older, t);
+        return true;
+    }
+
+    /** 保持しているtick数を返す。 */
+    public int getHistoryLength() {
+        return this.historyLength;
+    }
+
+    private int getOrAssignSlot(int id) {
+        int slot = this.slotById.get(id);
+        if (slot != NO_SLOT) {
+            return slot;
+        }
+        if (this.freeCount > 0) {
+            slot = this.freeSlots[--this.freeCount];
+        } else {
+            if (this.slotCount == this.slotIds.length) {
+                grow(this.slotIds.length * 2);
+            }
+            slot = this.slotCount++;
+        }
+        this.slotIds[slot] = id;
+        this.slotById.put(id, slot);
+        return slot;
+    }
+
+    private void releaseStaleSlots() {
+        long threshold = this.tick - this.historyLength;
+        for (int slot = 0; slot < this.slotCount; slot++) {
+            int id = this.slotIds[slot];
+            if (id == NO_SLOT || this.lastRecordedTicks[slot] > threshold) {
+                continue;
+            }
+            this.slotById.remove(id);
+            this.slotIds[slot] = NO_SLOT;
+            this.slotEntities[slot] = null;
+            this.freeSlots[this.freeCount++] = slot;
+        }
+    }
+
+    private void grow(int capacity) {
+        for (int i = 0; i < this.historyLength; i++) {
+            this.values[i] = Arrays.copyOf(this.values[i], capacity * STRIDE);
+            int oldLength = this.recordedTicks[i].length;
+            this.recordedTicks[i] = Arrays.copyOf(this.recordedTicks[i], capacity);
+            Arrays.fill(this.recordedTicks[i], oldLength, capacity, Long.MIN_VALUE);
+        }
+        this.slotIds = Arrays.copyOf(this.slotIds, capacity);
+        this.slotEntities = Arrays.copyOf(this.slotEntities, capacity);
+        this.lastRecordedTicks = Arrays.copyOf(this.lastRecordedTicks, capacity);
+        this.freeSlots = Arrays.copyOf(this.freeSlots, capacity);
+    }
+
+    /** 記録の読み出し先。使い回すことを前提としており、Vec3d/Box は必要になった時だけ生成する。 */
+    public static final class EntityRecord {
+        double posX;
+        double posY;
+        double posZ;
+        double minX;
+        double minY;
+        double minZ;
+        double maxX;
+        double maxY;
+        double maxZ;
+        double eyeY;
+
+        /** エンティティの現在の状態を書き込む。 */
+        public EntityRecord set(Entity entity) {
+            var box = entity.getBoundingBox();
+            this.posX = entity.getX();
+            this.posY = entity.getY();
+            this.posZ = entity.getZ();
+            this.minX = box.minX;
+            this.minY = box.minY;
+            this.minZ = box.minZ;
+            this.maxX = box.maxX;
+            this.maxY = box.maxY;
+            this.maxZ = box.maxZ;
+            this.eyeY = entity.getEyeY();
+            return this;
+        }
+
+        public EntityRecord set(EntityRecord other) {
+            this.posX = other.posX;
+            this.posY = other.posY;
+            this.posZ = other.posZ;
+            this.minX = other.minX;
+            this.minY = other.minY;
+            this.minZ = other.minZ;
+            this.maxX = other.maxX;
+            this.maxY = other.maxY;
+            this.maxZ = other.maxZ;
+            this.eyeY = other.eyeY;
+            return this;
+        }
+
+        /** from と to の間を t で線形補間した値を書き込む。 */
+        public EntityRecord lerp(EntityRecord from, EntityRecord to, double t) {
+            this.posX = lerp(from.posX, to.posX, t);
+            this.posY = lerp(from.posY, to.posY, t);
+            this.posZ = lerp(from.posZ, to.posZ, t);
+            this.minX = lerp(from.minX, to.minX, t);
+            this.minY = lerp(from.minY, to.minY, t);
+            this.minZ = lerp(from.minZ, to.minZ, t);
+            this.maxX = lerp(from.maxX, to.maxX, t);
+            this.maxY = lerp(from.maxY, to.maxY, t);
+            this.maxZ = lerp(from.maxZ, to.maxZ, t);
+            this.eyeY = lerp(from.eyeY, to.eyeY, t);
+            return this;
+        }
+
+        private static double lerp(double start, double end, double t) {
+            return start + (end - start) * t;
+        }
+
+        public double posX() {
+            return posX;
+        }
+
+        public double posY() {
+            return posY;
+        }
+
+        public double posZ() {
+            return posZ;
+        }
+
+        public double minX() {
+            return minX;
+        }
+
+        public double minY() {
+            return minY;
+        }
+
+        public double minZ() {
+            return minZ;
+        }
+
+        public double maxX() {
+            return maxX;
+        }
+
+        public double maxY() {
+            return maxY;
+        }
+
+        public double maxZ() {
+            return maxZ;
+        }
+
+        public double eyeY() {
+            return eyeY;
+        }
+
+        public Vec3d pos() {
+            return new Vec3d(posX, posY, posZ);
+        }
+
+        public Box boundingBox() {
+            return new Box(minX, minY, minZ, maxX, maxY, maxZ);
+        }
+
+        public Vec3d eyePos() {
+            return new Vec3d(posX, eyeY, posZ);
+        }
+    }
 }
@@ -1,11 +1,10 @@
 package net.sistr.actionarms.entity.util;
 
-import java.util.List;
 import java.util.Optional;
 import java.util.function.BooleanSupplier;
-import java.util.function.Supplier;
 import net.minecraft.entity.LivingEntity;
 import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.entity.player.PlayerInventory;
 import net.minecraft.inventory.Inventory;
 import net.minecraft.item.ItemStack;
 import net.sistr.actionarms.item.ItemUniqueManager;
@@ -17,15 +16,11 @@ import net.sistr.actionarms.item.util.Reloadable;
 public class GunController {
     private final LivingEntity user;
     private final IKeyInputManager keyInputManager;
-    private final Supplier<List<ItemStack>> itemsSupplier;
+    private final ActiveGunRegistry activeGuns = new ActiveGunRegistry();
 
-    public GunController(
-            LivingEntity user,
-            IKeyInputManager keyInputManager,
-            Supplier<List<ItemStack>> itemsSupplier) {
+    public GunController(LivingEntity user, IKeyInputManager keyInputManager) {
         this.user = user;
         this.keyInputManager = keyInputManager;
-        this.itemsSupplier = itemsSupplier;
     }
 
     public void tick() {
@@ -33,27 +28,49 @@ public class GunController {
             return;
         }
         var main = user.getMainHandStack();
+        var off = user.getOffHandStack();
 
-        var stacks = itemsSupplier.get();
-        for (ItemStack stack : stacks) {
-            if (!(stack.getItem() instanceof LeverActionGunItem leverAction)) {
-                continue;
+        if (this.user instanceof PlayerEntity player) {
+            var inventory = player.getInventory();
+            this.activeGuns.scanInventory(
+                    inventory, stack -> stack.getItem() instanceof LeverActionGunItem);
+            // 選択を外れた銃は、タイマーが残っている間だけ処理する
+            this.activeGuns.tick(
+                    inventory,
+                    main,
+                    stack ->
+                            stack.getItem() instanceof LeverActionGunItem leverAction
+                                    && tickGun(stack, leverAction, false));
+            // オフハンドの銃は選択されないが、タイマーは進める
+            if (off.getItem() instanceof LeverActionGunItem) {
+                this.activeGuns.add(PlayerInventory.OFF_HAND_SLOT, off);
             }
-            ItemUniqueManager.INSTANCE.uniqueCheck(user.getWorld(), stack);
-            tickGunComponent(stack, leverAction, stack == main);
         }
+        if (main.getItem() instanceof LeverActionGunItem leverAction) {
+            tickGun(main, leverAction, true);
+            if (this.user instanceof PlayerEntity player) {
+                this.activeGuns.add(player.getInventory().selectedSlot, main);
+            }
+        }
+    }
+
+    /**
+     * @return 銃の状態が変わればtrue
+     */
+    private boolean tickGun(ItemStack stack, LeverActionGunItem leverAction, boolean isSelected) {
+        return tickGunComponent(stack, leverAction, isSelected)
+                == IComponent.ComponentResult.MODIFIED;
     }
 
-    private void tickGunComponent(
+    private IComponent.ComponentResult tickGunComponent(
             ItemStack stack, LeverActionGunItem leverAction, boolean isSelected) {
-        IComponent.execute(
+        return IComponent.execute(
                 leverAction.getGunComponent(),
                 stack,
                 gunComponent -> {
                     var uuid = ItemUniqueManager.INSTANCE.getOrSet(stack);
 
-                    var animationContext =
-                            leverAction.createAnimationContext(user.getWorld(), uuid);
+                    var animationContext = leverAction.createAnimationContext(user, uuid);
                     LeverActionPlaySoundContext playSoundContext =
                             leverAction.createPlaySoundContext(user.getWorld(), user);
 
@@ -0,0 +1,5 @@
+package net.sistr.actionarms.entity.util;
+
+public interface HasAmmoIndex {
+    AmmoIndex actionArms$getAmmoIndex();
+}
@@ -0,0 +1,6 @@
+package net.sistr.actionarms.entity.util;
+
+public interface HasBulletManager {
+
+    BulletManager actionArms$getBulletManager();
+}
@@ -0,0 +1,120 @@
+package net.sistr.actionarms.entity.util;
+
+import net.minecraft.util.math.Vec3d;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * 即着弾の弾道。通常の弾丸と同じ運動モデルで、1tick分ずつの区間に分けて先に求める。
+ *
+ * <p>区間は始点と速度、ブロックで止まった終点を持つ。k番目の区間は、通常の弾丸なら発射から (k + 1) tick後に通過する。
+ */
+final class HitscanPath {
+    // 1区間分のレイアウト: 始点(3) + 速度(3) + ブロックで止まった終点(3)
+    private static final int STRIDE = 9;
+    private final double[] values;
+    private final int maxSegments;
+    private int segments;
+
+    HitscanPath(int maxSegments) {
+        this.maxSegments = maxSegments;
+        this.values = new double[maxSegments * STRIDE];
+    }
+
+    /**
+     * 弾道を求める。ブロックに当たるか、寿命か、読み込まれていない範囲に出たところで終わる。
+     *
+     * @return 区間の数
+     */
+    int trace(Tracer tracer, double x, double y, double z, double vx, double vy, double vz) {
+        var values = this.values;
+        this.segments = 0;
+        while (this.segments < this.maxSegments) {
+            if (!tracer.isLoaded(x, y, z)) {
+                break;
+            }
+            var blockHit = tracer.raycast(new Vec3d(x, y, z), new Vec3d(x + vx, y + vy, z + vz));
+            int offset = this.segments++ * STRIDE;
+            values[offset] = x;
+            values[offset + 1] = y;
+            values[offset + 2] = z;
+            values[offset + 3] = vx;
+            values[offset + 4] = vy;
+            values[offset + 5] = vz;
+            values[offset + 6] = blockHit != null ? blockHit.x : x + vx;
+            values[offset + 7] = blockHit != null ? blockHit.y : y + vy;
+            values[offset + 8] = blockHit != null ? blockHit.z : z + vz;
+            if (blockHit != null) {
+                break;
+            }
+
+            // BulletManager#tickBulletと同じ運動モデルで進める
+            x += vx;
+            y += vy;
+            z += vz;
+            vx *= 0.99f;
+            vy = vy * 0.99f - 0.01f;
+            vz *= 0.99f;
+        }
+        return this.segments;
+    }
+
+    int size() {
+        return this.segments;
+    }
+
+    double x(int k) {
+        return this.values[k * STRIDE];
+    }
+
+    double y(int k) {
+        return this.values[k * STRIDE + 1];
+    }
+
+    double z(int k) {
+        return this.values[k * STRIDE + 2];
+    }
+
+    double velX(int k) {
+        return this.values[k * STRIDE + 3];
+    }
+
+    double velY(int k) {
+        return this.values[k * STRIDE + 4];
+    }
+
+    double velZ(int k) {
+        return this.values[k * STRIDE + 5];
+    }
+
+    double endX(int k) {
+        return this.values[k * STRIDE + 6];
+    }
+
+    double endY(int k) {
+        return this.values[k * STRIDE + 7];
+    }
+
+    double endZ(int k) {
+        return this.values[k * STRIDE + 8];
+    }
+
+    /**
+     * k番目の区間を判定する時の巻き戻し量。
+     *
+     * <p>通常の弾丸は発射の次のtickから動くため、k番目の区間は (k + 1) tick後に見えている状態と判定する。射撃時点の巻き戻し量からその分を引き、0で止める。
+     */
+    static double segmentRewind(double rewindTicks, int k) {
+        return Math.max(0, rewindTicks - (k + 1));
+    }
+
+    interface Tracer {
+        /** その位置が読み込まれていて、弾丸が進めるならtrue */
+        boolean isLoaded(double x, double y, double z);
+
+        /**
+         * @return 区間がブロックに当たった位置。当たらなければnull
+         */
+        @Nullable
+        Vec3d raycast(Vec3d start, Vec3d end);
+    }
+}
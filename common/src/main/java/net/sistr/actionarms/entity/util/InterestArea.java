@@ -0,0 +1,140 @@
+package net.sistr.actionarms.entity.util;
+
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import net.minecraft.util.math.Box;
+
+/**
+ * 戦闘範囲を、チャンクセクション単位の集合として集める。
+ *
+ * <p>中心は所属するセクションにまとめ、その周囲のセクションを集合に加えるため、範囲が重なっても同じセクションは一度しか数えない。
+ * 集めたセクションは隣り合うものを直方体にまとめて返す。中心がいくつあっても、同じセクションを二度走査することはない。
+ */
+final class InterestArea {
+    private static final int SECTION_SIZE = 16;
+    // セクション座標を詰める。xは符号付きのまま上位に、z, yは正の値に寄せて下位に置く。
+    // 数値の大小が (x, z, y) の辞書順と一致する
+    private static final int XZ_OFFSET = 1 << 21;
+    private static final int Y_OFFSET = 1 << 19;
+    private static final long XZ_MASK = (1L << 22) - 1;
+    private static final long Y_MASK = (1L << 20) - 1;
+
+    private final LongOpenHashSet centers = new LongOpenHashSet();
+    // まだ直方体に含めていないセクション
+    private final LongOpenHashSet sections = new LongOpenHashSet();
+    private long[] sorted = new long[0];
+
+    void clear() {
+        this.centers.clear();
+        this.sections.clear();
+    }
+
+    boolean isEmpty() {
+        return this.centers.isEmpty();
+    }
+
+    void add(double x, double y, double z) {
+        this.centers.add(
+                pack(
+                        Math.floorDiv((int) Math.floor(x), SECTION_SIZE),
+                        Math.floorDiv((int) Math.floor(y), SECTION_SIZE),
+                        Math.floorDiv((int) Math.floor(z), SECTION_SIZE)));
+    }
+
+    /**
+     * 各中心から半径以内を覆うセクションを、重ならない直方体に分けて渡す。
+     *
+     * @param radius 中心からの半径(ブロック)
+     */
+    void forEachBox(double radius, Consumer<Box> consumer) {
+        int r = (int) Math.ceil(radius / SECTION_SIZE);
+        this.sections.clear();
+        for (LongIterator it = this.centers.iterator(); it.hasNext(); ) {
+            long center = it.nextLong();
+            int cx = unpackX(center);
+            int cy = unpackY(center);
+            int cz = unpackZ(center);
+            for (int x = cx - r; x <= cx + r; x++) {
+                for (int z = cz - r; z <= cz + r; z++) {
+                    for (int y = cy - r; y <= cy + r; y++) {
+                        this.sections.add(pack(x, y, z));
+                    }
+                }
+            }
+        }
+
+        int size = this.sections.size();
+        this.sorted = this.sections.toArray(this.sorted);
+        Arrays.sort(this.sorted, 0, size);
+        // 残っている中で最も小さいセクションから、y, z, x の順に伸ばせるだけ伸ばす
+        for (int i = 0; i < size; i++) {
+            long key = this.sorted[i];
+            if (!this.sections.contains(key)) {
+                continue;
+            }
+            int x0 = unpackX(key);
+            int y0 = unpackY(key);
+            int z0 = unpackZ(key);
+            int y1 = y0;
+            while (this.sections.contains(pack(x0, y1 + 1, z0))) {
+                y1++;
+            }
+            int z1 = z0;
+            while (containsAll(x0, x0, y0, y1, z1 + 1, z1 + 1)) {
+                z1++;
+            }
+            int x1 = x0;
+            while (containsAll(x1 + 1, x1 + 1, y0, y1, z0, z1)) {
+                x1++;
+            }
+            for (int x = x0; x <= x1; x++) {
+                for (int z = z0; z <= z1; z++) {
+                    for (int y = y0; y <= y1; y++) {
+                        this.sections.remove(pack(x, y, z));
+                    }
+                }
+            }
+            consumer.accept(
+                    new Box(
+                            x0 * SECTION_SIZE,
+                            y0 * SECTION_SIZE,
+                            z0 * SECTION_SIZE,
+                            (x1 + 1) * SECTION_SIZE,
+                            (y1 + 1) * SECTION_SIZE,
+                            (z1 + 1) * SECTION_SIZE));
+        }
+    }
+
+    private boolean containsAll(int x0, int x1, int y0, int y1, int z0, int z1) {
+        for (int x = x0; x <= x1; x++) {
+            for (int z = z0; z <= z1; z++) {
+                for (int y = y0; y <= y1; y++) {
+                    if (!this.sections.contains(pack(x, y, z))) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private static long pack(int x, int y, int z) {
+        return (long) x << 42
+                | ((long) (z + XZ_OFFSET) & XZ_MASK) << 20
+                | ((long) (y + Y_OFFSET) & Y_MASK);
+    }
+
+    private static int unpackX(long key) {
+        return (int) (key >> 42);
+    }
+
+    private static int unpackZ(long key) {
+        return (int) (key >>> 20 & XZ_MASK) - XZ_OFFSET;
+    }
+
+    private static int unpackY(long key) {
+        return (int) (key & Y_MASK) - Y_OFFSET;
+    }
+}
@@ -13,25 +13,7 @@ public class InventoryAmmoUtil {
 
     public static List<BulletData> popBullets(
             Inventory inventory, Predicate<BulletData> predicate, int limit) {
-        var bullets = new ArrayList<BulletData>();
-        for (int i = 0; i < inventory.size(); i++) {
-            var stack = inventory.getStack(i);
-            int finalI = i;
-            getBullet(stack)
-                    .filter(predicate)
-                    .ifPresent(
-                            bullet -> {
-                                int remain = limit - bullets.size();
-                                var stacks = inventory.removeStack(finalI, remain);
-                                for (int j = 0; j < stacks.getCount(); j++) {
-                                    bullets.add(bullet);
-                                }
-                            });
-            if (bullets.size() >= limit) {
-                return bullets;
-            }
-        }
-        return bullets;
+        return AmmoIndex.of(inventory).popBullets(inventory, predicate, limit);
     }
 
     public static List<BulletData> getBullets(
@@ -45,13 +27,7 @@ public class InventoryAmmoUtil {
     }
 
     public static boolean hasBullet(Inventory inventory, Predicate<BulletData> predicate) {
-        for (int i = 0; i < inventory.size(); i++) {
-            var stack = inventory.getStack(i);
-            if (getBullet(stack).filter(predicate).isPresent()) {
-                return true;
-            }
-        }
-        return false;
+        return AmmoIndex.of(inventory).hasBullet(predicate);
     }
 
     public static Optional<BulletData> getBullet(ItemStack stack) {
@@ -88,7 +88,7 @@ public class LeverActionAIGunController implements AIGunController {
                 component -> {
                     var uuid = ItemUniqueManager.INSTANCE.getOrSet(stack);
                     var soundContext = gunItem.createPlaySoundContext(user.getWorld(), user);
-                    var animContext = gunItem.createAnimationContext(user.getWorld(), uuid);
+                    var animContext = gunItem.createAnimationContext(user, uuid);
                     var cycleTickContext = gunItem.createCycleTickContext();
                     var reloadTickContext =
                             gunItem.createReloadTickContext(
@@ -90,7 +90,7 @@ public class SAAAIGunController implements AIGunController {
                 component -> {
                     var uuid = ItemUniqueManager.INSTANCE.getOrSet(stack);
                     var soundContext = gunItem.createSoundContext(user.getWorld(), user);
-                    var animContext = gunItem.createAnimationContext(user.getWorld(), uuid);
+                    var animContext = gunItem.createAnimationContext(user, uuid);
 
                     boolean markDuty = component.tick(soundContext, timeDelta, true);
 
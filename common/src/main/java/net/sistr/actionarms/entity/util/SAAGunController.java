@@ -1,10 +1,9 @@
 package net.sistr.actionarms.entity.util;
 
-import java.util.List;
 import java.util.Optional;
-import java.util.function.Supplier;
 import net.minecraft.entity.LivingEntity;
 import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.entity.player.PlayerInventory;
 import net.minecraft.inventory.Inventory;
 import net.minecraft.item.ItemStack;
 import net.sistr.actionarms.item.ItemUniqueManager;
@@ -15,15 +14,11 @@ import net.sistr.actionarms.item.component.SAAGunComponent;
 public class SAAGunController {
     private final LivingEntity user;
     private final IKeyInputManager keyInputManager;
-    private final Supplier<List<ItemStack>> itemsSupplier;
+    private final ActiveGunRegistry activeGuns = new ActiveGunRegistry();
 
-    public SAAGunController(
-            LivingEntity user,
-            IKeyInputManager keyInputManager,
-            Supplier<List<ItemStack>> itemsSupplier) {
+    public SAAGunController(LivingEntity user, IKeyInputManager keyInputManager) {
         this.user = user;
         this.keyInputManager = keyInputManager;
-        this.itemsSupplier = itemsSupplier;
     }
 
     public void tick() {
@@ -31,25 +26,48 @@ public class SAAGunController {
             return;
         }
         var main = user.getMainHandStack();
+        var off = user.getOffHandStack();
 
-        var stacks = itemsSupplier.get();
-        for (ItemStack stack : stacks) {
-            if (!(stack.getItem() instanceof SAAGunItem saaItem)) {
-                continue;
+        if (this.user instanceof PlayerEntity player) {
+            var inventory = player.getInventory();
+            this.activeGuns.scanInventory(
+                    inventory, stack -> stack.getItem() instanceof SAAGunItem);
+            // 選択を外れた銃は、タイマーが残っている間だけ処理する
+            this.activeGuns.tick(
+                    inventory,
+                    main,
+                    stack ->
+                            stack.getItem() instanceof SAAGunItem saaItem
+                                    && tickGun(stack, saaItem, false));
+            // オフハンドの銃は選択されないが、タイマーは進める
+            if (off.getItem() instanceof SAAGunItem) {
+                this.activeGuns.add(PlayerInventory.OFF_HAND_SLOT, off);
+            }
+        }
+        if (main.getItem() instanceof SAAGunItem saaItem) {
+            tickGun(main, saaItem, true);
+            if (this.user instanceof PlayerEntity player) {
+                this.activeGuns.add(player.getInventory().selectedSlot, main);
             }
-            ItemUniqueManager.INSTANCE.uniqueCheck(user.getWorld(), stack);
-            tickGunComponent(stack, saaItem, stack == main);
         }
     }
 
-    private void tickGunComponent(ItemStack stack, SAAGunItem saaItem, boolean isSelected) {
-        IComponent.execute(
+    /**
+     * @return 銃の状態が変わればtrue
+     */
+    private boolean tickGun(ItemStack stack, SAAGunItem saaItem, boolean isSelected) {
+        return tickGunComponent(stack, saaItem, isSelected) == IComponent.ComponentResult.MODIFIED;
+    }
+
+    private IComponent.ComponentResult tickGunComponent(
+            ItemStack stack, SAAGunItem saaItem, boolean isSelected) {
+        return IComponent.execute(
                 saaItem.getGunComponent(),
                 stack,
                 gunComponent -> {
                     var uuid = ItemUniqueManager.INSTANCE.getOrSet(stack);
                     var soundContext = saaItem.createSoundContext(user.getWorld(), user);
-                    var animContext = saaItem.createAnimationContext(user.getWorld(), uuid);
+                    var animContext = saaItem.createAnimationContext(user, uuid);
 
                     boolean markDuty = gunComponent.tick(soundContext, 1f / 20f, isSelected);
 
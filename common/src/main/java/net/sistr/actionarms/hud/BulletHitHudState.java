@@ -1,24 +1,34 @@
 package net.sistr.actionarms.hud;
 
-import net.minecraft.nbt.NbtCompound;
+import net.minecraft.network.PacketByteBuf;
+import org.jetbrains.annotations.Nullable;
 
 public record BulletHitHudState(State state) {
+    // 命中は毎回送るため、差分は取らない
+    public static final HudCodec<BulletHitHudState> CODEC =
+            new HudCodec<>() {
+                @Override
+                public void write(
+                        PacketByteBuf buf,
+                        @Nullable BulletHitHudState prev,
+                        BulletHitHudState state) {
+                    buf.writeByte(state.state.ordinal());
+                }
+
+                @Override
+                public BulletHitHudState read(
+                        PacketByteBuf buf, @Nullable BulletHitHudState prev) {
+                    var states = State.values();
+                    int ordinal = buf.readUnsignedByte();
+                    return new BulletHitHudState(
+                            ordinal < states.length ? states[ordinal] : State.HIT);
+                }
+            };
 
     public static BulletHitHudState of(State state) {
         return new BulletHitHudState(state);
     }
 
-    public static BulletHitHudState of(NbtCompound nbt) {
-        State state = State.values()[nbt.getByte("state")];
-        return new BulletHitHudState(state);
-    }
-
-    public NbtCompound write() {
-        var nbt = new NbtCompound();
-        nbt.putByte("state", (byte) this.state.ordinal());
-        return nbt;
-    }
-
     public enum State {
         HIT(0xFF00FF00),
         HEADSHOT(0xFFFFFF00),
@@ -0,0 +1,18 @@
+package net.sistr.actionarms.hud;
+
+import net.minecraft.network.PacketByteBuf;
+import org.jetbrains.annotations.Nullable;
+
+/** HUDの状態を、前回送った状態から変わった項目だけ読み書きする。 */
+public interface HudCodec<T> {
+
+    /**
+     * @param prev 前回送った状態。nullなら全ての項目を書く
+     */
+    void write(PacketByteBuf buf, @Nullable T prev, T state);
+
+    /**
+     * @param prev 前回受け取った状態。初回はnull
+     */
+    T read(PacketByteBuf buf, @Nullable T prev);
+}
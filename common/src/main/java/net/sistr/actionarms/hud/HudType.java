@@ -0,0 +1,41 @@
+package net.sistr.actionarms.hud;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.jetbrains.annotations.Nullable;
+
+/** HUDの状態の種類。数値IDはサーバーとクライアントで共通の、登録順の値。 */
+public final class HudType<T> {
+    private static final List<HudType<?>> TYPES = new ArrayList<>();
+    public static final HudType<LeverActionHudState> LEVER_ACTION =
+            register(LeverActionHudState.CODEC);
+    public static final HudType<SAAHudState> SAA = register(SAAHudState.CODEC);
+    public static final HudType<BulletHitHudState> BULLET_HIT = register(BulletHitHudState.CODEC);
+
+    private final int id;
+    private final HudCodec<T> codec;
+
+    private HudType(int id, HudCodec<T> codec) {
+        this.id = id;
+        this.codec = codec;
+    }
+
+    private static <T> HudType<T> register(HudCodec<T> codec) {
+        var type = new HudType<>(TYPES.size(), codec);
+        TYPES.add(type);
+        return type;
+    }
+
+    @Nullable
+    public static HudType<?> byId(int id) {
+        return id >= 0 && id < TYPES.size() ? TYPES.get(id) : null;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public HudCodec<T> getCodec() {
+        return codec;
+    }
+}
@@ -1,13 +1,72 @@
 package net.sistr.actionarms.hud;
 
+import java.util.ArrayList;
 import java.util.List;
-import net.minecraft.nbt.NbtCompound;
-import net.minecraft.nbt.NbtList;
-import net.minecraft.nbt.NbtString;
+import net.minecraft.network.PacketByteBuf;
 import net.sistr.actionarms.item.component.LeverActionGunComponent;
 import org.jetbrains.annotations.Nullable;
 
 public record LeverActionHudState(MagazineContents magazineContents, ChamberState chamberState) {
+    // 差分の先頭の1byte。MAGAZINEとCHAMBER_BULLETは続く項目の有無、それ以外は値そのもの
+    private static final int MAGAZINE = 1;
+    private static final int CHAMBER_BULLET = 1 << 1;
+    private static final int IN_CARTRIDGE = 1 << 2;
+    private static final int HAS_BULLET = 1 << 3;
+
+    public static final HudCodec<LeverActionHudState> CODEC =
+            new HudCodec<>() {
+                @Override
+                public void write(
+                        PacketByteBuf buf,
+                        @Nullable LeverActionHudState prev,
+                        LeverActionHudState state) {
+                    var chamber = state.chamberState;
+                    int header = 0;
+                    if (prev == null || !prev.magazineContents.equals(state.magazineContents)) {
+                        header |= MAGAZINE;
+                    }
+                    if (chamber.inCartridge) {
+                        header |= IN_CARTRIDGE;
+                    }
+                    if (chamber.bullet != null) {
+                        header |= HAS_BULLET;
+                        if (prev == null || !chamber.bullet.equals(prev.chamberState.bullet)) {
+                            header |= CHAMBER_BULLET;
+                        }
+                    }
+                    buf.writeByte(header);
+                    if ((header & MAGAZINE) != 0) {
+                        writeBullets(buf, state.magazineContents.bullets);
+                    }
+                    if ((header & CHAMBER_BULLET) != 0) {
+                        buf.writeString(chamber.bullet);
+                    }
+                }
+
+                @Override
+                public LeverActionHudState read(
+                        PacketByteBuf buf, @Nullable LeverActionHudState prev) {
+                    int header = buf.readUnsignedByte();
+                    MagazineContents magazineContents;
+                    if ((header & MAGAZINE) != 0) {
+                        magazineContents = new MagazineContents(readBullets(buf));
+                    } else {
+                        magazineContents =
+                                prev != null
+                                        ? prev.magazineContents
+                                        : new MagazineContents(List.of());
+                    }
+                    String bullet = null;
+                    if ((header & CHAMBER_BULLET) != 0) {
+                        bullet = buf.readString();
+                    } else if ((header & HAS_BULLET) != 0 && prev != null) {
+                        bullet = prev.chamberState.bullet;
+                    }
+                    return new LeverActionHudState(
+                            magazineContents,
+                            new ChamberState((header & IN_CARTRIDGE) != 0, bullet));
+                }
+            };
 
     public static LeverActionHudState of(LeverActionGunComponent component) {
         var list =
@@ -25,46 +84,36 @@ public record LeverActionHudState(MagazineContents magazineContents, ChamberStat
         return new LeverActionHudState(new MagazineContents(list), chamberState);
     }
 
-    public static LeverActionHudState of(NbtCompound nbt) {
-        MagazineContents magazineContents = new MagazineContents(List.of());
-        if (nbt.contains("magazine")) {
-            var magazine = nbt.getList("magazine", 8);
-            List<String> bullets =
-                    magazine.stream().map(NbtString.class::cast).map(NbtString::asString).toList();
-            magazineContents = new MagazineContents(bullets);
+    // 同じ弾が続くことが多いため、続く数でまとめて書く
+    private static void writeBullets(PacketByteBuf buf, List<String> bullets) {
+        int runs = 0;
+        for (int i = 0; i < bullets.size(); i++) {
+            if (i == 0 || !bullets.get(i).equals(bullets.get(i - 1))) {
+                runs++;
+            }
         }
-        ChamberState chamberState = new ChamberState(false, null);
-        if (nbt.contains("chamber")) {
-            var chamberNbt = nbt.getCompound("chamber");
-            boolean inCartridge = chamberNbt.getBoolean("inCartridge");
-            if (chamberNbt.contains("bullet")) {
-                var bullet = chamberNbt.getString("bullet");
-                chamberState = new ChamberState(inCartridge, bullet);
-            } else {
-                chamberState = new ChamberState(inCartridge, null);
+        buf.writeVarInt(runs);
+        int start = 0;
+        for (int i = 1; i <= bullets.size(); i++) {
+            if (i == bullets.size() || !bullets.get(i).equals(bullets.get(start))) {
+                buf.writeString(bullets.get(start));
+                buf.writeVarInt(i - start);
+                start = i;
             }
         }
-        return new LeverActionHudState(magazineContents, chamberState);
     }
 
-    public NbtCompound write() {
-        var nbt = new NbtCompound();
-        if (this.magazineContents != null) {
-            var magazineNbt = new NbtList();
-            this.magazineContents
-                    .bullets()
-                    .forEach(bullet -> magazineNbt.add(NbtString.of(bullet)));
-            nbt.put("magazine", magazineNbt);
-        }
-        if (this.chamberState != null) {
-            var chamberNbt = new NbtCompound();
-            chamberNbt.putBoolean("inCartridge", this.chamberState.inCartridge);
-            if (this.chamberState.bullet != null) {
-                chamberNbt.putString("bullet", this.chamberState.bullet);
+    private static List<String> readBullets(PacketByteBuf buf) {
+        int runs = buf.readVarInt();
+        var bullets = new ArrayList<String>();
+        for (int i = 0; i < runs; i++) {
+            var bullet = buf.readString();
+            int count = buf.readVarInt();
+            for (int j = 0; j < count; j++) {
+                bullets.add(bullet);
             }
-            nbt.put("chamber", chamberNbt);
         }
-        return nbt;
+        return List.copyOf(bullets);
     }
 
     public record MagazineContents(List<String> bullets) {}
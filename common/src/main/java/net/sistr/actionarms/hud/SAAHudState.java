@@ -2,30 +2,82 @@ package net.sistr.actionarms.hud;
 
 import java.util.ArrayList;
 import java.util.List;
-import net.minecraft.nbt.NbtCompound;
-import net.minecraft.nbt.NbtList;
-import net.minecraft.nbt.NbtString;
+import net.minecraft.network.PacketByteBuf;
 import net.sistr.actionarms.item.component.SAAGunComponent;
+import org.jetbrains.annotations.Nullable;
 
 public record SAAHudState(
         int firingIndex, List<ChamberState> chamberStates, boolean gateOpen, boolean hammerCocked) {
+    // 差分の先頭の1byte。FIRING_INDEXとCHAMBERSは続く項目の有無、それ以外は値そのもの
+    private static final int FIRING_INDEX = 1;
+    private static final int CHAMBERS = 1 << 1;
+    private static final int GATE_OPEN = 1 << 2;
+    private static final int HAMMER_COCKED = 1 << 3;
+
+    public static final HudCodec<SAAHudState> CODEC =
+            new HudCodec<>() {
+                @Override
+                public void write(
+                        PacketByteBuf buf, @Nullable SAAHudState prev, SAAHudState state) {
+                    int header = 0;
+                    if (prev == null || prev.firingIndex != state.firingIndex) {
+                        header |= FIRING_INDEX;
+                    }
+                    if (prev == null || !prev.chamberStates.equals(state.chamberStates)) {
+                        header |= CHAMBERS;
+                    }
+                    if (state.gateOpen) {
+                        header |= GATE_OPEN;
+                    }
+                    if (state.hammerCocked) {
+                        header |= HAMMER_COCKED;
+                    }
+                    buf.writeByte(header);
+                    if ((header & FIRING_INDEX) != 0) {
+                        buf.writeVarInt(state.firingIndex);
+                    }
+                    if ((header & CHAMBERS) != 0) {
+                        buf.writeVarInt(state.chamberStates.size());
+                        for (ChamberState chamberState : state.chamberStates) {
+                            buf.writeByte(chamberState.ordinal());
+                        }
+                    }
+                }
+
+                @Override
+                public SAAHudState read(PacketByteBuf buf, @Nullable SAAHudState prev) {
+                    int header = buf.readUnsignedByte();
+                    int firingIndex = prev != null ? prev.firingIndex : 0;
+                    if ((header & FIRING_INDEX) != 0) {
+                        firingIndex = buf.readVarInt();
+                    }
+                    List<ChamberState> chamberStates =
+                            prev != null ? prev.chamberStates : List.of();
+                    if ((header & CHAMBERS) != 0) {
+                        var values = ChamberState.values();
+                        int size = buf.readVarInt();
+                        var states = new ArrayList<ChamberState>(size);
+                        for (int i = 0; i < size; i++) {
+                            int ordinal = buf.readUnsignedByte();
+                            states.add(
+                                    ordinal < values.length
+                                            ? values[ordinal]
+                                            : ChamberState.EMPTY);
+                        }
+                        chamberStates = List.copyOf(states);
+                    }
+                    return new SAAHudState(
+                            firingIndex,
+                            chamberStates,
+                            (header & GATE_OPEN) != 0,
+                            (header & HAMMER_COCKED) != 0);
+                }
+            };
 
     public enum ChamberState {
         EMPTY,
         LOADED,
-        SPENT;
-
-        public String id() {
-            return name().toLowerCase();
-        }
-
-        public static ChamberState fromId(String id) {
-            try {
-                return ChamberState.valueOf(id.toUpperCase());
-            } catch (IllegalArgumentException e) {
-                return EMPTY;
-            }
-        }
+        SPENT
     }
 
     public static SAAHudState of(SAAGunComponent component) {
@@ -48,31 +100,4 @@ public record SAAHudState(
                 component.isGateOpen(),
                 component.isHammerCocked());
     }
-
-    public static SAAHudState of(NbtCompound nbt) {
-        int firingIndex = nbt.getInt("firingIndex");
-        boolean gateOpen = nbt.getBoolean("gateOpen");
-        List<ChamberState> states = new ArrayList<>();
-        if (nbt.contains("chamberStates")) {
-            NbtList list = nbt.getList("chamberStates", 8);
-            for (int i = 0; i < list.size(); i++) {
-                states.add(ChamberState.fromId(list.getString(i)));
-            }
-        }
-        boolean hammerCocked = nbt.getBoolean("hammerCocked");
-        return new SAAHudState(firingIndex, states, gateOpen, hammerCocked);
-    }
-
-    public NbtCompound write() {
-        NbtCompound nbt = new NbtCompound();
-        nbt.putInt("firingIndex", this.firingIndex);
-        nbt.putBoolean("gateOpen", this.gateOpen);
-        nbt.putBoolean("hammerCocked", this.hammerCocked);
-        NbtList list = new NbtList();
-        for (ChamberState state : this.chamberStates) {
-            list.add(NbtString.of(state.id()));
-        }
-        nbt.put("chamberStates", list);
-        return nbt;
-    }
 }
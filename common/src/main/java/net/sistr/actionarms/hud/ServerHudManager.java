@@ -1,79 +1,224 @@
 package net.sistr.actionarms.hud;
 
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.UUID;
-import java.util.function.Function;
-import net.minecraft.nbt.NbtCompound;
+import java.util.concurrent.ConcurrentHashMap;
+import net.minecraft.item.ItemStack;
+import net.minecraft.network.PacketByteBuf;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.server.world.ServerWorld;
 import net.sistr.actionarms.item.ItemUniqueManager;
 import net.sistr.actionarms.item.LeverActionGunItem;
 import net.sistr.actionarms.item.SAAGunItem;
 import net.sistr.actionarms.item.component.IComponent;
-import net.sistr.actionarms.network.HudStatePacket;
+import net.sistr.actionarms.network.ReplicationPacket;
+import net.sistr.actionarms.network.ServerReplicationManager;
+import org.jetbrains.annotations.Nullable;
 
+/**
+ * プレイヤーごとのHUDの状態を、クライアントへ同期する。
+ *
+ * <p>手に持った銃のコンポーネントが変わった時だけ状態を作り直し、前回との差分を送る。何も起きていないプレイヤーには、持ち替えの確認以外の処理をしない。
+ *
+ * <p>送る内容は {@link ServerReplicationManager} のフレームに書き、tickの終わりにまとめて送る。
+ */
 public class ServerHudManager {
     public static final ServerHudManager INSTANCE = new ServerHudManager();
-    private final Map<UUID, Map<String, HudState<?>>> hudStateMap = new HashMap<>();
+    // 持つのをやめてから、この間でチャンネルを消す
+    private static final long EXPIRE_TICKS = 20L;
+    private final Map<UUID, PlayerHud> hudStateMap = new HashMap<>();
+    // 手に持たれている銃。ItemStackはequalsを持たないため、同一性で引ける。
+    // コンポーネントのイベントはクライアントのスレッドからも来るため、並行に読めるようにしておく
+    private final Map<ItemStack, PlayerHud> heldStacks = new ConcurrentHashMap<>();
 
     public void tick(ServerWorld world) {
-        var uuidSet =
-                world.getPlayers().stream()
-                        .map(ServerPlayerEntity::getUuid)
-                        .collect(HashSet::new, HashSet::add, HashSet::addAll);
-        hudStateMap.keySet().removeIf(uuid -> !uuidSet.contains(uuid));
-        world.getPlayers().forEach(this::updateHud);
-        hudStateMap
-                .values()
-                .forEach(
-                        map ->
-                                map.values()
-                                        .removeIf(
-                                                state ->
-                                                        state.lastUpdateTime
-                                                                < world.getTime() - 20L));
+        long now = world.getTime();
+        for (ServerPlayerEntity player : world.getPlayers()) {
+            var hud = hudStateMap.computeIfAbsent(player.getUuid(), PlayerHud::new);
+            var mainStack = player.getMainHandStack();
+            if (mainStack.isEmpty()) {
+                mainStack = ItemStack.EMPTY;
+            }
+            if (mainStack != hud.heldStack) {
+                hold(hud, mainStack, now);
+            }
+            if (hud.dirty) {
+                updateHud(player, hud);
+                hud.dirty = false;
+            }
+            hud.expire(now);
+        }
+    }
+
+    public void onPlayerQuit(ServerPlayerEntity player) {
+        var hud = hudStateMap.remove(player.getUuid());
+        if (hud != null) {
+            heldStacks.remove(hud.heldStack, hud);
+        }
+    }
+
+    /** 手に持った銃のコンポーネントが変われば、そのプレイヤーのHUDを作り直す。 */
+    public void onComponentChanged(ItemStack stack) {
+        var hud = heldStacks.get(stack);
+        if (hud != null) {
+            hud.dirty = true;
+        }
     }
 
-    private void updateHud(ServerPlayerEntity player) {
-        var mainStack = player.getMainHandStack();
+    private void hold(PlayerHud hud, ItemStack stack, long now) {
+        heldStacks.remove(hud.heldStack, hud);
+        hud.release(now);
+        hud.heldStack = stack;
+        var item = stack.getItem();
+        if (item instanceof LeverActionGunItem || item instanceof SAAGunItem) {
+            heldStacks.put(stack, hud);
+            hud.dirty = true;
+        }
+    }
+
+    private void updateHud(ServerPlayerEntity player, PlayerHud hud) {
+        var mainStack = hud.heldStack;
+        long now = player.getWorld().getTime();
 
         if (mainStack.getItem() instanceof LeverActionGunItem leverActionGunItem) {
             var gunComponent =
                     IComponent.query(leverActionGunItem.getGunComponent(), mainStack, c -> c);
             var state = LeverActionHudState.of(gunComponent);
-            var map = hudStateMap.computeIfAbsent(player.getUuid(), k -> new HashMap<>());
             var uuid = ItemUniqueManager.INSTANCE.getOrSet(mainStack);
             var id = "lever_action@" + uuid;
-            syncHudState(player, map, id, state, LeverActionHudState::write);
+            hud.hold(hud.sync(id, HudType.LEVER_ACTION, state, false, now, Long.MAX_VALUE), now);
         }
 
         if (mainStack.getItem() instanceof SAAGunItem saaGunItem) {
             var gunComponent = IComponent.query(saaGunItem.getGunComponent(), mainStack, c -> c);
             var state = SAAHudState.of(gunComponent);
-            var map = hudStateMap.computeIfAbsent(player.getUuid(), k -> new HashMap<>());
             var uuid = ItemUniqueManager.INSTANCE.getOrSet(mainStack);
             var id = "saa@" + uuid;
-            syncHudState(player, map, id, state, SAAHudState::write);
+            hud.hold(hud.sync(id, HudType.SAA, state, false, now, Long.MAX_VALUE), now);
         }
     }
 
-    private <T> void syncHudState(
-            ServerPlayerEntity player,
-            Map<String, HudState<?>> map,
-            String id,
-            T state,
-            Function<T, NbtCompound> writer) {
-        var hudState = map.get(id);
-        if (hudState == null || !hudState.prevState.equals(state)) {
-            HudStatePacket.sendS2C(player, id, writer.apply(state));
-            map.put(id, new HudState<>(state, player.getWorld().getTime()));
+    /**
+     * 一度だけの状態を送る予定に入れる。実際に送るのは、プレイヤーのいるワールドのtickの終わり。
+     *
+     * @param force 前回と同じ状態でも送るならtrue
+     */
+    public <T> void syncHudState(
+            ServerPlayerEntity player, String id, HudType<T> type, T state, boolean force) {
+        long now = player.getWorld().getTime();
+        hudStateMap
+                .computeIfAbsent(player.getUuid(), PlayerHud::new)
+                .sync(id, type, state, force, now, now + EXPIRE_TICKS);
+    }
+
+    private static class PlayerHud {
+        private final UUID player;
+        private final Map<String, Channel<?>> channels = new HashMap<>();
+        // 消したチャンネルのIDを使い回し、varintを短く保つ
+        private final IntArrayList freeIds = new IntArrayList();
+        private int nextId;
+        private ItemStack heldStack = ItemStack.EMPTY;
+        // 手に持った銃のチャンネル。持っている間は消さない
+        @Nullable private Channel<?> held;
+        private volatile boolean dirty;
+        // 次に消えるチャンネルの時刻。これより前は消すものを探さない
+        private long nextExpireTime = Long.MAX_VALUE;
+
+        private PlayerHud(UUID player) {
+            this.player = player;
         }
-        if (hudState != null && hudState.prevState.equals(state)) {
-            map.put(id, new HudState<>(hudState.prevState, player.getWorld().getTime()));
+
+        @SuppressWarnings("unchecked")
+        private <T> Channel<T> sync(
+                String id, HudType<T> type, T state, boolean force, long now, long expireTime) {
+            var channel = channels.get(id);
+            if (channel == null || channel.type != type) {
+                if (channel != null) {
+                    remove(channel);
+                }
+                int channelId = freeIds.isEmpty() ? nextId++ : freeIds.popInt();
+                var created = new Channel<>(id, channelId, type, state);
+                channels.put(id, created);
+                setExpireTime(created, expireTime);
+                ReplicationPacket.writeDefine(frame(), channelId, id, type, state);
+                return created;
+            }
+            var typed = (Channel<T>) channel;
+            setExpireTime(typed, expireTime);
+            if (force || !typed.state.equals(state)) {
+                ReplicationPacket.writeUpdate(frame(), typed.channelId, type, typed.state, state);
+                typed.state = state;
+            }
+            return typed;
+        }
+
+        private void hold(Channel<?> channel, long now) {
+            // UUIDが振り直されていれば、以前のチャンネルは使われなくなる
+            if (held != channel) {
+                release(now);
+            }
+            held = channel;
+        }
+
+        /** 手に持っていた銃のチャンネルを、しばらくしたら消えるようにする。 */
+        private void release(long now) {
+            if (held != null) {
+                setExpireTime(held, now + EXPIRE_TICKS);
+                held = null;
+            }
+        }
+
+        private void setExpireTime(Channel<?> channel, long expireTime) {
+            channel.expireTime = expireTime;
+            nextExpireTime = Math.min(nextExpireTime, expireTime);
+        }
+
+        private void expire(long now) {
+            if (now < nextExpireTime) {
+                return;
+            }
+            nextExpireTime = Long.MAX_VALUE;
+            var iterator = channels.values().iterator();
+            while (iterator.hasNext()) {
+                var channel = iterator.next();
+                if (channel.expireTime <= now) {
+                    iterator.remove();
+                    ReplicationPacket.writeRemove(frame(), channel.channelId);
+                    freeIds.add(channel.channelId);
+                } else {
+                    nextExpireTime = Math.min(nextExpireTime, channel.expireTime);
+                }
+            }
+        }
+
+        private void remove(Channel<?> channel) {
+            if (held == channel) {
+                held = null;
+            }
+            channels.remove(channel.id);
+            ReplicationPacket.writeRemove(frame(), channel.channelId);
+            freeIds.add(channel.channelId);
+        }
+
+        private PacketByteBuf frame() {
+            return ServerReplicationManager.INSTANCE.getFrame(player);
         }
     }
 
-    private record HudState<T>(T prevState, long lastUpdateTime) {}
+    private static class Channel<T> {
+        private final String id;
+        private final int channelId;
+        private final HudType<T> type;
+        private T state;
+        private long expireTime;
+
+        private Channel(String id, int channelId, HudType<T> type, T state) {
+            this.id = id;
+            this.channelId = channelId;
+            this.type = type;
+            this.state = state;
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package net.sistr.actionarms.item;
 
 import net.minecraft.item.Item;
+import net.sistr.actionarms.item.data.AADataRegistry;
 import net.sistr.actionarms.item.data.BulletData;
 
 public class BulletItem extends Item {
@@ -11,7 +12,8 @@ public class BulletItem extends Item {
         this.bulletData = bulletData;
     }
 
+    /** データパックで上書きされていれば、そちらを返す。 */
     public BulletData getBulletData() {
-        return bulletData;
+        return AADataRegistry.current(BulletData.class, this.bulletData);
     }
 }
@@ -0,0 +1,13 @@
+package net.sistr.actionarms.item;
+
+import java.util.UUID;
+import org.jetbrains.annotations.Nullable;
+
+public interface HasUniqueIdCache {
+
+    /** 覚えているUUIDを返す。覚えた後にNBTが差し替えられていればnull。 */
+    @Nullable UUID actionArms$getCachedUniqueId();
+
+    /** 今のNBTから読んだUUIDとして覚える。 */
+    void actionArms$setCachedUniqueId(@Nullable UUID uuid);
+}
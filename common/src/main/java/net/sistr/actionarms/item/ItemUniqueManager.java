@@ -1,58 +1,130 @@
 package net.sistr.actionarms.item;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import net.minecraft.item.ItemStack;
+import net.minecraft.registry.RegistryKey;
 import net.minecraft.world.World;
+import net.sistr.actionarms.item.component.ComponentEvents;
+import org.jetbrains.annotations.Nullable;
 
+/**
+ * アイテムに固有のUUIDを振り、同じUUIDのアイテムが複数あれば振り直す。
+ *
+ * <p>重複の検出はワールドごとに、tick単位のバケットで行う。古いバケットは中身を見ずに丸ごと捨てる。
+ * ワールドのtickが並列に進んでも壊れないよう、ロックを使わずに扱える構造にしている。
+ */
 public class ItemUniqueManager {
     public static final ItemUniqueManager INSTANCE = new ItemUniqueManager();
-    private final Map<UUID, Long> stateMap = new HashMap<>();
+    // 2の累乗
+    private static final int BUCKET_COUNT = 4;
+    private final Map<RegistryKey<World>, WorldState> worldStates = new ConcurrentHashMap<>();
 
     public Optional<UUID> getUUID(ItemStack stack) {
+        var cached = getCached(stack);
+        if (cached != null) return Optional.of(cached);
         if (stack.getNbt() == null) return Optional.empty();
         var nbt = stack.getNbt();
         if (!nbt.containsUuid("uniqueId")) return Optional.empty();
         var uuid = nbt.getUuid("uniqueId");
+        setCached(stack, uuid);
         return Optional.of(uuid);
     }
 
     public UUID getOrSet(ItemStack stack) {
+        var cached = getCached(stack);
+        if (cached != null) {
+            return cached;
+        }
         // queryだと値がセットされない
         var nbt = stack.getOrCreateNbt();
+        UUID uuid;
         if (!nbt.containsUuid("uniqueId")) {
-            var uuid = UUID.randomUUID();
+            uuid = UUID.randomUUID();
             nbt.putUuid("uniqueId", uuid);
-            return uuid;
+        } else {
+            uuid = nbt.getUuid("uniqueId");
         }
-        return nbt.getUuid("uniqueId");
+        setCached(stack, uuid);
+        return uuid;
     }
 
     public void setUUID(ItemStack stack, UUID uuid) {
         var nbt = stack.getOrCreateNbt();
         nbt.putUuid("uniqueId", uuid);
+        setCached(stack, uuid);
+    }
+
+    // 読んだUUIDはItemStackに覚えさせ、NBTが差し替えられるまで使い回す。
+    // NBTを直接書き換えてUUIDを変える場合は、setUUIDを通すこと
+
+    @Nullable
+    private static UUID getCached(ItemStack stack) {
+        return ((HasUniqueIdCache) (Object) stack).actionArms$getCachedUniqueId();
+    }
+
+    private static void setCached(ItemStack stack, UUID uuid) {
+        ((HasUniqueIdCache) (Object) stack).actionArms$setCachedUniqueId(uuid);
     }
 
     public void clearOld(World world) {
-        stateMap.values().removeIf(worldTime -> worldTime < world.getTime() - 5);
+        var state = worldStates.get(world.getRegistryKey());
+        if (state != null) {
+            state.expire(world.getTime());
+        }
     }
 
     public void uniqueCheck(World world, ItemStack stack) {
         if (world.isClient) {
             return;
         }
-        long worldTime = world.getTime();
-        var uuid = getOrSet(stack);
-        var savedWorldTime = stateMap.get(uuid);
-        // 重複した状態が存在している
-        if (Long.valueOf(worldTime).equals(savedWorldTime)) {
-            // 対象のUUIDを変更する
-            setUUID(stack, UUID.randomUUID());
-            uniqueCheck(world, stack);
-            return;
+        var seen =
+                worldStates
+                        .computeIfAbsent(world.getRegistryKey(), key -> new WorldState())
+                        .getSeen(world.getTime());
+        // 同じtickに同じUUIDを見たなら、重複した状態が存在している
+        if (!seen.add(getOrSet(stack))) {
+            // 対象のUUIDを変更する。振り直したUUIDが重複することは考えない
+            var uuid = UUID.randomUUID();
+            setUUID(stack, uuid);
+            seen.add(uuid);
+            // UUIDで同期先を引いているため、変わったことを知らせる
+            ComponentEvents.CHANGED.invoker().onChanged(stack);
+        }
+    }
+
+    private static class WorldState {
+        private final AtomicReferenceArray<Bucket> buckets =
+                new AtomicReferenceArray<>(BUCKET_COUNT);
+
+        private Set<UUID> getSeen(long time) {
+            int index = (int) (time & (BUCKET_COUNT - 1));
+            while (true) {
+                var bucket = buckets.get(index);
+                if (bucket != null && bucket.time() == time) {
+                    return bucket.seen();
+                }
+                var created = new Bucket(time, ConcurrentHashMap.newKeySet());
+                if (buckets.compareAndSet(index, bucket, created)) {
+                    return created.seen();
+                }
+            }
+        }
+
+        /** 今のtickより前のバケットを捨てる。 */
+        private void expire(long time) {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                var bucket = buckets.get(i);
+                if (bucket != null && bucket.time() != time) {
+                    buckets.compareAndSet(i, bucket, null);
+                }
+            }
         }
-        stateMap.put(uuid, worldTime);
     }
+
+    private record Bucket(long time, Set<UUID> seen) {}
 }
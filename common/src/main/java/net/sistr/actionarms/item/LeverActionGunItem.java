@@ -22,19 +22,19 @@ import net.minecraft.util.Formatting;
 import net.minecraft.util.math.Vec3d;
 import net.minecraft.util.math.random.Random;
 import net.minecraft.world.World;
-import net.sistr.actionarms.entity.BulletEntity;
 import net.sistr.actionarms.entity.util.AIGunController;
 import net.sistr.actionarms.entity.util.HasAimManager;
+import net.sistr.actionarms.entity.util.HasBulletManager;
 import net.sistr.actionarms.entity.util.IAimManager;
 import net.sistr.actionarms.entity.util.InventoryAmmoUtil;
 import net.sistr.actionarms.entity.util.LeverActionAIGunController;
 import net.sistr.actionarms.item.component.*;
+import net.sistr.actionarms.item.data.AADataRegistry;
 import net.sistr.actionarms.item.data.BulletData;
 import net.sistr.actionarms.item.data.LeverActionGunData;
 import net.sistr.actionarms.item.data.MagazineData;
 import net.sistr.actionarms.item.util.*;
 import net.sistr.actionarms.network.RecoilPacket;
-import net.sistr.actionarms.setup.Registration;
 import org.jetbrains.annotations.Nullable;
 
 public class LeverActionGunItem extends Item implements GunItem {
@@ -114,16 +114,9 @@ public class LeverActionGunItem extends Item implements GunItem {
         float fireSpread = fireSpread(user, gunComponent);
         fireDirection = calculateSpreadDirection(fireDirection, fireSpread, user.getRandom());
 
-        var bulletEntity =
-                BulletEntity.of(
-                        Registration.BULLET_ENTITY.get(),
-                        world,
-                        user,
-                        bullet,
-                        user.getEyePos().add(0, -0.1, 0),
-                        fireDirection,
-                        3);
-        world.spawnEntity(bulletEntity);
+        ((HasBulletManager) world)
+                .actionArms$getBulletManager()
+                .fire(user, bullet, user.getEyePos().add(0, -0.1, 0), fireDirection, 3);
 
         // 発砲煙パーティクル
         // プレイヤーの少し前方にパーティクルを生成する
@@ -234,7 +227,7 @@ public class LeverActionGunItem extends Item implements GunItem {
     // getter
 
     public Supplier<LeverActionGunComponent> getGunComponent() {
-        return () -> new LeverActionGunComponent(this.gunData, this.magazineData);
+        return () -> new LeverActionGunComponent(getGunData(), getMagazineData());
     }
 
     // コンテキスト生成
@@ -243,8 +236,8 @@ public class LeverActionGunItem extends Item implements GunItem {
         return sound -> sound.playSound(world, entity, SoundCategory.PLAYERS);
     }
 
-    public AnimationContext createAnimationContext(World world, UUID uuid) {
-        return AnimationContext.of(world, uuid);
+    public AnimationContext createAnimationContext(Entity user, UUID uuid) {
+        return AnimationContext.of(user, uuid);
     }
 
     public FireTrigger.FireStartContext createFireStartContext(World world, LivingEntity user) {
@@ -300,11 +293,12 @@ public class LeverActionGunItem extends Item implements GunItem {
         return new LeverActionAIGunController(user, this, stackSupplier, inventorySupplier);
     }
 
+    /** データパックで上書きされていれば、そちらを返す。 */
     public LeverActionGunData getGunData() {
-        return gunData;
+        return AADataRegistry.current(LeverActionGunData.class, this.gunData);
     }
 
     public MagazineData getMagazineData() {
-        return magazineData;
+        return AADataRegistry.current(MagazineData.class, this.magazineData);
     }
 }
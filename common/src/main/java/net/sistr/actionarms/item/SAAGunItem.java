@@ -5,6 +5,7 @@ import java.util.Optional;
 import java.util.UUID;
 import java.util.function.Supplier;
 import net.minecraft.client.item.TooltipContext;
+import net.minecraft.entity.Entity;
 import net.minecraft.entity.LivingEntity;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.inventory.Inventory;
@@ -17,19 +18,19 @@ import net.minecraft.server.world.ServerWorld;
 import net.minecraft.text.Text;
 import net.minecraft.util.Formatting;
 import net.minecraft.world.World;
-import net.sistr.actionarms.entity.BulletEntity;
 import net.sistr.actionarms.entity.util.AIGunController;
 import net.sistr.actionarms.entity.util.HasAimManager;
+import net.sistr.actionarms.entity.util.HasBulletManager;
 import net.sistr.actionarms.entity.util.IAimManager;
 import net.sistr.actionarms.entity.util.SAAAIGunController;
 import net.sistr.actionarms.item.component.IComponent;
 import net.sistr.actionarms.item.component.SAAGunComponent;
+import net.sistr.actionarms.item.data.AADataRegistry;
 import net.sistr.actionarms.item.data.BulletData;
 import net.sistr.actionarms.item.data.SAAGunData;
 import net.sistr.actionarms.item.util.AnimationContext;
 import net.sistr.actionarms.item.util.SAAPlaySoundContext;
 import net.sistr.actionarms.network.RecoilPacket;
-import net.sistr.actionarms.setup.Registration;
 import org.jetbrains.annotations.Nullable;
 
 public class SAAGunItem extends Item implements GunItem {
@@ -80,16 +81,9 @@ public class SAAGunItem extends Item implements GunItem {
                 LeverActionGunItem.calculateSpreadDirection(
                         fireDirection, fireSpread, user.getRandom());
 
-        var bulletEntity =
-                BulletEntity.of(
-                        Registration.BULLET_ENTITY.get(),
-                        world,
-                        user,
-                        bullet,
-                        user.getEyePos().add(0, -0.1, 0),
-                        fireDirection,
-                        3);
-        world.spawnEntity(bulletEntity);
+        ((HasBulletManager) world)
+                .actionArms$getBulletManager()
+                .fire(user, bullet, user.getEyePos().add(0, -0.1, 0), fireDirection, 3);
 
         // 発砲煙パーティクル
         var eyePos = user.getEyePos();
@@ -114,6 +108,7 @@ public class SAAGunItem extends Item implements GunItem {
     }
 
     public float fireSpread(LivingEntity user, SAAGunComponent gunComponent) {
+        var gunData = gunComponent.getGunData();
         float baseSpread = gunData.baseSpreadAngle();
         boolean isAiming = HasAimManager.get(user).map(IAimManager::isAiming).orElse(false);
         float currentSpread = isAiming ? gunData.aimSpreadAngle() : baseSpread;
@@ -129,7 +124,7 @@ public class SAAGunItem extends Item implements GunItem {
     }
 
     public Supplier<SAAGunComponent> getGunComponent() {
-        return () -> new SAAGunComponent(this.gunData);
+        return () -> new SAAGunComponent(getGunData());
     }
 
     public SAAGunComponent.SoundContext createSoundContext(World world, LivingEntity user) {
@@ -142,8 +137,8 @@ public class SAAGunItem extends Item implements GunItem {
                 };
     }
 
-    public AnimationContext createAnimationContext(World world, UUID uuid) {
-        return AnimationContext.of(world, uuid);
+    public AnimationContext createAnimationContext(Entity user, UUID uuid) {
+        return AnimationContext.of(user, uuid);
     }
 
     public SAAGunComponent.FireContext createFireContext(World world, LivingEntity user) {
@@ -163,7 +158,8 @@ public class SAAGunItem extends Item implements GunItem {
         return new SAAAIGunController(user, this, stackSupplier, inventorySupplier);
     }
 
+    /** データパックで上書きされていれば、そちらを返す。 */
     public SAAGunData getGunData() {
-        return gunData;
+        return AADataRegistry.current(SAAGunData.class, this.gunData);
     }
 }
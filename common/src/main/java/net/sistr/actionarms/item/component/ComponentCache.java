@@ -0,0 +1,78 @@
+package net.sistr.actionarms.item.component;
+
+import java.util.function.Supplier;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NbtCompound;
+import net.sistr.actionarms.item.data.AADataRegistry;
+
+/**
+ * ItemStackごとに読み込んだコンポーネントを保持し、tickをまたいで使い回す。
+ *
+ * <p>キャッシュはItemStack自体に持たせるため、ItemStackと一緒に破棄される。NBTが差し替えられていれば読み直す。変更はすぐには書き込まず、
+ * ItemStackのNBTが参照される時(保存、同期、コピー、比較)にまとめて書き戻す。1つのアイテムが使うコンポーネントは1種類であることを前提とする。
+ */
+public final class ComponentCache {
+    private final NbtCompound nbt;
+    private final IComponent component;
+    // 読み込んだ時のデータ定義。定義が再読み込みされたら読み直す
+    private final int generation;
+    private boolean dirty;
+
+    private ComponentCache(NbtCompound nbt, IComponent component, int generation) {
+        this.nbt = nbt;
+        this.component = component;
+        this.generation = generation;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T extends IComponent> T get(ItemStack stack, Supplier<T> constructor) {
+        return (T) of(stack, constructor).component;
+    }
+
+    IComponent component() {
+        return this.component;
+    }
+
+    static <T extends IComponent> ComponentCache of(ItemStack stack, Supplier<T> constructor) {
+        var holder = (HasComponentCache) (Object) stack;
+        var cache = holder.actionArms$getComponentCache();
+        var nbt = holder.actionArms$getRawNbt();
+        int generation = AADataRegistry.getSnapshot().getGeneration();
+        if (cache != null && nbt != null && cache.nbt == nbt) {
+            if (cache.generation == generation) {
+                return cache;
+            }
+            // 古い定義のまま持っている変更を書き戻してから読み直す
+            flush(stack);
+        }
+        // 初めて読むか、外部でNBTが差し替えられた
+        nbt = stack.getOrCreateNbt();
+        var component = constructor.get();
+        component.read(nbt);
+        cache = new ComponentCache(nbt, component, generation);
+        holder.actionArms$setComponentCache(cache);
+        ComponentEvents.CHANGED.invoker().onChanged(stack);
+        return cache;
+    }
+
+    void markDirty(ItemStack stack) {
+        this.dirty = true;
+        ComponentEvents.CHANGED.invoker().onChanged(stack);
+    }
+
+    /** 未保存の変更をItemStackのNBTへ書き戻す。 */
+    public static void flush(ItemStack stack) {
+        var holder = (HasComponentCache) (Object) stack;
+        var cache = holder.actionArms$getComponentCache();
+        if (cache == null || !cache.dirty) {
+            return;
+        }
+        cache.dirty = false;
+        if (holder.actionArms$getRawNbt() != cache.nbt) {
+            // NBTが差し替えられていれば、そちらを優先する
+            holder.actionArms$setComponentCache(null);
+            return;
+        }
+        cache.component.writeChanges(cache.nbt);
+    }
+}
@@ -0,0 +1,18 @@
+package net.sistr.actionarms.item.component;
+
+import dev.architectury.event.Event;
+import dev.architectury.event.EventFactory;
+import net.minecraft.item.ItemStack;
+
+/** ItemStackが持つコンポーネントのイベント。 */
+public interface ComponentEvents {
+    /**
+     * コンポーネントが変更された時、NBTから読み直された時、アイテムのUUIDが振り直された時に呼ばれる。
+     */
+    Event<Changed> CHANGED = EventFactory.createLoop();
+
+    @FunctionalInterface
+    interface Changed {
+        void onChanged(ItemStack stack);
+    }
+}
@@ -0,0 +1,14 @@
+package net.sistr.actionarms.item.component;
+
+import net.minecraft.nbt.NbtCompound;
+import org.jetbrains.annotations.Nullable;
+
+public interface HasComponentCache {
+
+    @Nullable ComponentCache actionArms$getComponentCache();
+
+    void actionArms$setComponentCache(@Nullable ComponentCache cache);
+
+    /** 書き戻しを起こさずにItemStackのNBTを取得する。 */
+    @Nullable NbtCompound actionArms$getRawNbt();
+}
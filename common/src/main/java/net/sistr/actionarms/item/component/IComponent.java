@@ -12,9 +12,30 @@ public interface IComponent {
 
     void write(NbtCompound nbt);
 
-    static <T extends IComponent> void execute(
+    /**
+     * 前回の読み書きから変わった項目だけを書き込みます。既定では全て書き込みます。
+     *
+     * @param nbt 前回読み書きしたnbt
+     */
+    default void writeChanges(NbtCompound nbt) {
+        write(nbt);
+    }
+
+    /**
+     * ItemStackのコンポーネントに対して操作を実行します。
+     *
+     * @return 操作の結果
+     */
+    static <T extends IComponent> ComponentResult execute(
             Supplier<T> constructor, ItemStack stack, ExecuteFunction<T> function) {
-        execute(constructor.get(), stack.getOrCreateNbt(), function);
+        var cache = ComponentCache.of(stack, constructor);
+        @SuppressWarnings("unchecked")
+        var component = (T) cache.component();
+        var result = function.execute(component);
+        if (result == ComponentResult.MODIFIED) {
+            cache.markDirty(stack);
+        }
+        return result;
     }
 
     static <T extends IComponent> void execute(
@@ -33,7 +54,7 @@ public interface IComponent {
 
     static <T extends IComponent, R> R query(
             Supplier<T> constructor, ItemStack stack, Function<T, R> function) {
-        return query(constructor.get(), stack.getOrCreateNbt(), function);
+        return function.apply(ComponentCache.get(stack, constructor));
     }
 
     static <T extends IComponent, R> R query(
@@ -59,7 +80,11 @@ public interface IComponent {
 
     static <T extends IComponent> void update(
             Supplier<T> constructor, ItemStack stack, Consumer<T> function) {
-        update(constructor.get(), stack.getOrCreateNbt(), function);
+        var cache = ComponentCache.of(stack, constructor);
+        @SuppressWarnings("unchecked")
+        var component = (T) cache.component();
+        function.accept(component);
+        cache.markDirty(stack);
     }
 
     static <T extends IComponent> void update(
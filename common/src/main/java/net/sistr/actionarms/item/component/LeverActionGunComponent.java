@@ -13,6 +13,15 @@ public class LeverActionGunComponent implements IComponent, FireTrigger, Cycling
     private GunPhase phase = GunPhase.IDLE;
     private float phaseTimer;
     private float cooldownTime;
+    // 前回読み書きした時の値。変わった項目だけを書き戻すのに使う
+    private boolean writtenHammerReady;
+    private GunPhase writtenPhase = GunPhase.IDLE;
+    private float writtenPhaseTimer;
+    private float writtenCooldownTime;
+    private int writtenChamberVersion;
+    private int writtenMagazineVersion;
+    // 以前の形式で読んだため、次の書き戻しで新しい形式に移す
+    private boolean needsFormatMigration;
 
     public enum GunPhase {
         IDLE,
@@ -264,8 +273,19 @@ public class LeverActionGunComponent implements IComponent, FireTrigger, Cycling
         this.phase = readPhase(nbt.getString("phase"));
         this.phaseTimer = nbt.getFloat("phaseTimer");
         this.cooldownTime = nbt.getFloat("cooldownTime");
-        this.chamber.read(nbt.getCompound("chamber"));
-        this.magazine.read(nbt.getCompound("magazine"));
+        var ammo = nbt.getCompound("ammo");
+        boolean legacy = BulletPalette.isLegacyFormat(ammo);
+        if (legacy) {
+            // 薬室とマガジンを別々のNbtCompoundに持つ以前の形式
+            this.chamber.read(nbt.getCompound("chamber"));
+            this.magazine.read(nbt.getCompound("magazine"));
+        } else {
+            var palette = BulletPalette.read(ammo);
+            this.chamber.decode(palette, ammo.getByte("chamber"));
+            this.magazine.decode(palette, ammo.getByteArray("magazine"));
+        }
+        markWritten();
+        this.needsFormatMigration = legacy && (nbt.contains("chamber") || nbt.contains("magazine"));
     }
 
     @Override
@@ -274,12 +294,54 @@ public class LeverActionGunComponent implements IComponent, FireTrigger, Cycling
         nbt.putString("phase", this.phase.name());
         nbt.putFloat("phaseTimer", this.phaseTimer);
         nbt.putFloat("cooldownTime", this.cooldownTime);
-        var chamberNbt = new NbtCompound();
-        this.chamber.write(chamberNbt);
-        nbt.put("chamber", chamberNbt);
-        var magazineNbt = new NbtCompound();
-        this.magazine.write(magazineNbt);
-        nbt.put("magazine", magazineNbt);
+        writeAmmo(nbt);
+        markWritten();
+    }
+
+    @Override
+    public void writeChanges(NbtCompound nbt) {
+        if (this.hammerReady != this.writtenHammerReady) {
+            nbt.putBoolean("hammerReady", this.hammerReady);
+        }
+        if (this.phase != this.writtenPhase) {
+            nbt.putString("phase", this.phase.name());
+        }
+        if (this.phaseTimer != this.writtenPhaseTimer) {
+            nbt.putFloat("phaseTimer", this.phaseTimer);
+        }
+        if (this.cooldownTime != this.writtenCooldownTime) {
+            nbt.putFloat("cooldownTime", this.cooldownTime);
+        }
+        // タイマーだけが進んだtickでは、薬室とマガジンは作り直さない
+        if (this.needsFormatMigration
+                || this.chamber.getVersion() != this.writtenChamberVersion
+                || this.magazine.getVersion() != this.writtenMagazineVersion) {
+            writeAmmo(nbt);
+        }
+        markWritten();
+    }
+
+    /** 薬室とマガジンの中身を、弾の種類の一覧と1発1バイトの番号にまとめて書く。 */
+    private void writeAmmo(NbtCompound nbt) {
+        var palette = new BulletPalette();
+        var ammo = new NbtCompound();
+        ammo.putByte("v", BulletPalette.FORMAT_VERSION);
+        ammo.putByte("chamber", this.chamber.encode(palette));
+        ammo.putByteArray("magazine", this.magazine.encode(palette));
+        ammo.put("palette", palette.write());
+        nbt.put("ammo", ammo);
+        nbt.remove("chamber");
+        nbt.remove("magazine");
+    }
+
+    private void markWritten() {
+        this.writtenHammerReady = this.hammerReady;
+        this.writtenPhase = this.phase;
+        this.writtenPhaseTimer = this.phaseTimer;
+        this.writtenCooldownTime = this.cooldownTime;
+        this.writtenChamberVersion = this.chamber.getVersion();
+        this.writtenMagazineVersion = this.magazine.getVersion();
+        this.needsFormatMigration = false;
     }
 
     private static GunPhase readPhase(String name) {
@@ -2,54 +2,86 @@ package net.sistr.actionarms.item.component;
 
 import java.util.*;
 import net.minecraft.nbt.NbtCompound;
-import net.minecraft.nbt.NbtList;
 import net.sistr.actionarms.item.data.AADataRegistry;
 import net.sistr.actionarms.item.data.BulletData;
 import net.sistr.actionarms.item.data.MagazineData;
+import net.sistr.actionarms.item.util.BulletPalette;
 
+/**
+ * 管状弾倉などの、弾を一列に並べて持つマガジン。
+ *
+ * <p>弾は容量分の配列を輪状に使って持つ。先頭と末尾のどちらに出し入れしても要素をずらさず、弾ごとの割り当ても起きない。
+ */
 public class MagazineComponent implements IComponent {
     private final MagazineData magazineData;
-    private final LinkedList<BulletData> bullets;
+    private final BulletData[] bullets;
+    private final List<BulletData> view = new BulletsView();
+    // 先頭の弾の位置
+    private int head;
+    private int size;
+    private int version;
 
     public MagazineComponent(MagazineData magazineData) {
         this.magazineData = magazineData;
-        this.bullets = new LinkedList<>();
+        this.bullets = new BulletData[Math.max(magazineData.capacity(), 0)];
     }
 
     public boolean addFirstBullet(BulletData bullet) {
-        if (bullets.size() < magazineData.capacity()
-                && this.magazineData.allowBullet().test(bullet)) {
-            bullets.addFirst(bullet);
+        if (canAddBullet() && this.magazineData.allowBullet().test(bullet)) {
+            pushFirst(bullet);
+            version++;
             return true;
         }
         return false;
     }
 
     public boolean addLastBullet(BulletData bullet) {
-        if (bullets.size() < magazineData.capacity()
-                && this.magazineData.allowBullet().test(bullet)) {
-            bullets.addLast(bullet);
+        if (canAddBullet() && this.magazineData.allowBullet().test(bullet)) {
+            pushLast(bullet);
+            version++;
             return true;
         }
         return false;
     }
 
+    /**
+     * 使える弾を全てまとめて込める。全て入りきらない場合は一発も込めない。
+     *
+     * @param reverse trueなら弾の並びを逆にして込める
+     * @param first trueなら先頭側に込める
+     * @return このマガジンに使えない弾
+     */
     public List<BulletData> addBullets(
             List<BulletData> bulletList, boolean reverse, boolean first) {
-        var compat = new ArrayList<BulletData>();
-        var incompat = new ArrayList<BulletData>();
-        splitBullets(bulletList, compat, incompat);
-        if (reverse) {
-            compat = new ArrayList<>(compat);
-            Collections.reverse(compat);
+        List<BulletData> incompat = List.of();
+        int compatCount = 0;
+        for (BulletData bullet : bulletList) {
+            if (this.magazineData.allowBullet().test(bullet)) {
+                compatCount++;
+            } else {
+                if (incompat.isEmpty()) {
+                    incompat = new ArrayList<>();
+                }
+                incompat.add(bullet);
+            }
         }
 
-        if (bullets.size() + compat.size() <= magazineData.capacity()) {
-            if (first) {
-                bullets.addAll(0, compat);
-            } else {
-                bullets.addAll(compat);
+        if (size + compatCount <= this.bullets.length) {
+            // 先頭側へは後ろの弾から積むと、込めた後の並びがリストの並びと揃う
+            boolean backward = first != reverse;
+            var iterator = bulletList.listIterator(backward ? bulletList.size() : 0);
+            while (backward ? iterator.hasPrevious() : iterator.hasNext()) {
+                var bullet = backward ? iterator.previous() : iterator.next();
+                if (!this.magazineData.allowBullet().test(bullet)) {
+                    continue;
+                }
+                if (first) {
+                    pushFirst(bullet);
+                } else {
+                    pushLast(bullet);
+                }
             }
+            version++;
         }
         return incompat;
     }
@@ -74,43 +106,53 @@ public class MagazineComponent implements IComponent {
     }
 
     public void removeFirstBullet() {
-        bullets.removeFirst();
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        pollFirst();
+        version++;
     }
 
     public void removeLastBullet() {
-        bullets.removeLast();
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        pollLast();
+        version++;
     }
 
     public Optional<BulletData> popFirstBullet() {
-        if (!bullets.isEmpty()) {
-            return Optional.of(bullets.removeFirst());
+        if (size != 0) {
+            version++;
+            return Optional.of(pollFirst());
         }
         return Optional.empty();
     }
 
     public Optional<BulletData> popLastBullet() {
-        if (!bullets.isEmpty()) {
-            return Optional.of(bullets.removeLast());
+        if (size != 0) {
+            version++;
+            return Optional.of(pollLast());
         }
         return Optional.empty();
     }
 
     public Optional<BulletData> getFirstBullet() {
-        if (!bullets.isEmpty()) {
-            return Optional.of(bullets.getFirst());
+        if (size != 0) {
+            return Optional.of(bullets[head]);
         }
         return Optional.empty();
     }
 
     public Optional<BulletData> getLastBullet() {
-        if (!bullets.isEmpty()) {
-            return Optional.of(bullets.getLast());
+        if (size != 0) {
+            return Optional.of(bullets[index(size - 1)]);
         }
         return Optional.empty();
     }
 
     public boolean canAddBullet() {
-        return bullets.size() < magazineData.capacity();
+        return size < bullets.length;
     }
 
     public boolean canAddBullet(BulletData bullet) {
@@ -118,15 +160,16 @@ public class MagazineComponent implements IComponent {
     }
 
     public boolean hasBullet() {
-        return !bullets.isEmpty();
+        return size != 0;
     }
 
     public boolean isFull() {
-        return bullets.size() >= magazineData.capacity();
+        return size >= bullets.length;
     }
 
+    /** 先頭から順に並んだ、変更できないビュー。 */
     public List<BulletData> getBullets() {
-        return bullets;
+        return view;
     }
 
     public int getMaxCapacity() {
@@ -134,7 +177,7 @@ public class MagazineComponent implements IComponent {
     }
 
     public boolean isEmpty() {
-        return this.bullets.isEmpty();
+        return size == 0;
     }
 
     public MagazineData getMagazineType() {
@@ -142,22 +185,108 @@ public class MagazineComponent implements IComponent {
     }
 
     public int size() {
-        return bullets.size();
+        return size;
     }
 
     public void clear() {
-        bullets.clear();
+        Arrays.fill(bullets, null);
+        head = 0;
+        size = 0;
+        version++;
+    }
+
+    private int index(int offset) {
+        int i = head + offset;
+        return i < bullets.length ? i : i - bullets.length;
+    }
+
+    // 以下は容量と空きを確認済みの前提で呼ぶ
+
+    private void pushFirst(BulletData bullet) {
+        head = head == 0 ? bullets.length - 1 : head - 1;
+        bullets[head] = bullet;
+        size++;
+    }
+
+    private void pushLast(BulletData bullet) {
+        bullets[index(size)] = bullet;
+        size++;
+    }
+
+    private BulletData pollFirst() {
+        var bullet = bullets[head];
+        bullets[head] = null;
+        head = index(1);
+        size--;
+        return bullet;
+    }
+
+    private BulletData pollLast() {
+        int last = index(size - 1);
+        var bullet = bullets[last];
+        bullets[last] = null;
+        size--;
+        return bullet;
+    }
+
+    /** 中身が変わるたびに増える値。書き戻しが必要か調べるのに使う。 */
+    public int getVersion() {
+        return version;
+    }
+
+    public byte[] encode(BulletPalette palette) {
+        byte[] states = new byte[size];
+        for (int i = 0; i < size; i++) {
+            states[i] = palette.encode(bullets[index(i)]);
+        }
+        return states;
+    }
+
+    /** 見つからない弾は読み飛ばす。容量を超えた分も読み飛ばす。 */
+    public void decode(BulletPalette palette, byte[] states) {
+        clear();
+        for (byte state : states) {
+            var bullet = palette.decodeBullet(state);
+            if (bullet != null && canAddBullet()) {
+                pushLast(bullet);
+            }
+        }
     }
 
     public void read(NbtCompound nbt) {
-        bullets.clear();
+        if (!BulletPalette.isLegacyFormat(nbt)) {
+            decode(BulletPalette.read(nbt), nbt.getByteArray("states"));
+            return;
+        }
+        // 弾ごとにNbtCompoundを持つ以前の形式
+        clear();
         var bulletList = nbt.getList("Bullets", 10);
-        this.bullets.addAll(AADataRegistry.readAll(BulletData.class, bulletList));
+        for (BulletData bullet : AADataRegistry.readAll(BulletData.class, bulletList)) {
+            if (canAddBullet()) {
+                pushLast(bullet);
+            }
+        }
     }
 
     public void write(NbtCompound nbt) {
-        var bulletList = new NbtList();
-        AADataRegistry.writeAll(bullets, bulletList);
-        nbt.put("Bullets", bulletList);
+        var palette = new BulletPalette();
+        var states = encode(palette);
+        nbt.putByte("v", BulletPalette.FORMAT_VERSION);
+        nbt.put("palette", palette.write());
+        nbt.putByteArray("states", states);
+        nbt.remove("Bullets");
+    }
+
+    private class BulletsView extends AbstractList<BulletData> implements RandomAccess {
+        @Override
+        public BulletData get(int i) {
+            Objects.checkIndex(i, size);
+            return bullets[index(i)];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
     }
 }
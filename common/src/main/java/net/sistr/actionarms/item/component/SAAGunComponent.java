@@ -4,6 +4,7 @@ import net.minecraft.nbt.NbtCompound;
 import net.sistr.actionarms.item.data.BulletData;
 import net.sistr.actionarms.item.data.SAAGunData;
 import net.sistr.actionarms.item.util.AnimationContext;
+import net.sistr.actionarms.item.util.BulletPalette;
 import net.sistr.actionarms.item.util.Cylinder;
 
 public class SAAGunComponent implements IComponent {
@@ -34,6 +35,14 @@ public class SAAGunComponent implements IComponent {
     private float phaseTimer;
     private float cooldownTime;
     private boolean hammerCocked;
+    // 前回読み書きした時の値。変わった項目だけを書き戻すのに使う
+    private Phase writtenPhase = Phase.IDLE;
+    private float writtenPhaseTimer;
+    private float writtenCooldownTime;
+    private boolean writtenHammerCocked;
+    private int writtenCylinderVersion;
+    // 以前の形式で読んだため、次の書き戻しで新しい形式に移す
+    private boolean needsFormatMigration;
 
     public SAAGunComponent(SAAGunData gunData) {
         this.gunData = gunData;
@@ -269,7 +278,11 @@ public class SAAGunComponent implements IComponent {
         this.phase = readPhase(nbt.getString("phase"));
         this.phaseTimer = nbt.getFloat("phaseTimer");
         this.cooldownTime = nbt.getFloat("cooldownTime");
-        this.cylinder.read(nbt.getCompound("cylinder"));
+        var cylinderNbt = nbt.getCompound("cylinder");
+        this.cylinder.read(cylinderNbt);
+        markWritten();
+        this.needsFormatMigration =
+                nbt.contains("cylinder") && BulletPalette.isLegacyFormat(cylinderNbt);
     }
 
     @Override
@@ -278,11 +291,47 @@ public class SAAGunComponent implements IComponent {
         nbt.putString("phase", this.phase.name());
         nbt.putFloat("phaseTimer", this.phaseTimer);
         nbt.putFloat("cooldownTime", this.cooldownTime);
+        writeCylinder(nbt);
+        markWritten();
+    }
+
+    @Override
+    public void writeChanges(NbtCompound nbt) {
+        if (this.hammerCocked != this.writtenHammerCocked) {
+            nbt.putBoolean("hammerCocked", this.hammerCocked);
+        }
+        if (this.phase != this.writtenPhase) {
+            nbt.putString("phase", this.phase.name());
+        }
+        if (this.phaseTimer != this.writtenPhaseTimer) {
+            nbt.putFloat("phaseTimer", this.phaseTimer);
+        }
+        if (this.cooldownTime != this.writtenCooldownTime) {
+            nbt.putFloat("cooldownTime", this.cooldownTime);
+        }
+        // タイマーだけが進んだtickでは、シリンダーの薬室リストは作り直さない
+        if (this.needsFormatMigration
+                || this.cylinder.getVersion() != this.writtenCylinderVersion) {
+            writeCylinder(nbt);
+        }
+        markWritten();
+    }
+
+    private void writeCylinder(NbtCompound nbt) {
         var cylinderNbt = new NbtCompound();
         this.cylinder.write(cylinderNbt);
         nbt.put("cylinder", cylinderNbt);
     }
 
+    private void markWritten() {
+        this.writtenHammerCocked = this.hammerCocked;
+        this.writtenPhase = this.phase;
+        this.writtenPhaseTimer = this.phaseTimer;
+        this.writtenCooldownTime = this.cooldownTime;
+        this.writtenCylinderVersion = this.cylinder.getVersion();
+        this.needsFormatMigration = false;
+    }
+
     private static Phase readPhase(String name) {
         try {
             return Phase.valueOf(name);
@@ -0,0 +1,283 @@
+package net.sistr.actionarms.item.data;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.resource.Resource;
+import net.minecraft.resource.ResourceManager;
+import net.minecraft.resource.ResourceReloader;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.JsonHelper;
+import net.minecraft.util.profiler.Profiler;
+import net.sistr.actionarms.ActionArms;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * データパックの {@code data/<namespace>/actionarms/} 以下から、銃、マガジン、弾の定義を読み込む。
+ *
+ * <p>名前空間が {@code actionarms} ならファイル名がそのままIDになり、それ以外の名前空間では {@code <namespace>:<ファイル名>} がIDになる。
+ * 組み込みの定義と同じIDなら、書かなかった項目は組み込みの値を引き継ぐ。各ファイルは準備用のExecutorで並列に解析し、
+ * 全て読み終えてから組み込みの定義と合わせたスナップショットを {@link AADataRegistry#publish} で一度に差し替える。
+ *
+ * <p>クライアントも同じ定義で動きを予測するため、読み込んだ定義の元のJSONを持っておき、{@link #write} で送って {@link #read} で組み立て直す。
+ */
+public class AADataLoader implements ResourceReloader {
+    public static final AADataLoader INSTANCE = new AADataLoader();
+    private static final String ROOT = "actionarms/";
+
+    private final Gson gson = new Gson();
+    private volatile Loaded loaded = new Loaded(AADataRegistry.getBuiltInSnapshot(), List.of());
+
+    private AADataLoader() {}
+
+    @Override
+    public CompletableFuture<Void> reload(
+            Synchronizer synchronizer,
+            ResourceManager manager,
+            Profiler prepareProfiler,
+            Profiler applyProfiler,
+            Executor prepareExecutor,
+            Executor applyExecutor) {
+        return CompletableFuture.supplyAsync(
+                        () -> {
+                            prepareProfiler.startTick();
+                            prepareProfiler.push("listing_actionarms_data");
+                            var tasks = new ArrayList<CompletableFuture<Entry<?>>>();
+                            for (Type<?> type : Type.VALUES) {
+                                findAll(manager, type, prepareExecutor, tasks);
+                            }
+                            prepareProfiler.pop();
+                            prepareProfiler.endTick();
+                            return tasks;
+                        },
+                        prepareExecutor)
+                .thenCompose(
+                        tasks ->
+                                CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new))
+                                        .thenApply(v -> buildLoaded(tasks)))
+                .thenCompose(synchronizer::whenPrepared)
+                .thenAcceptAsync(
+                        loaded -> {
+                            applyProfiler.startTick();
+                            applyProfiler.push("applying_actionarms_data");
+                            this.loaded = loaded;
+                            AADataRegistry.publish(loaded.snapshot);
+                            applyProfiler.pop();
+                            applyProfiler.endTick();
+                        },
+                        applyExecutor);
+    }
+
+    private <T extends IData> void findAll(
+            ResourceManager manager,
+            Type<T> type,
+            Executor executor,
+            List<CompletableFuture<Entry<?>>> tasks) {
+        String directory = ROOT + type.directory;
+        var resources =
+                manager.findResources(directory, id -> id.getPath().endsWith(".json"));
+        for (Map.Entry<Identifier, Resource> resource : resources.entrySet()) {
+            tasks.add(
+                    CompletableFuture.supplyAsync(
+                            () -> load(type, directory, resource.getKey(), resource.getValue()),
+                            executor));
+        }
+    }
+
+    @Nullable
+    private <T extends IData> Entry<T> load(
+            Type<T> type, String directory, Identifier resourceId, Resource resource) {
+        String path = resourceId.getPath();
+        String name = path.substring(directory.length() + 1, path.length() - ".json".length());
+        // 名前空間が違えば同じファイル名でも別の定義として扱う
+        String id =
+                resourceId.getNamespace().equals(ActionArms.MOD_ID)
+                        ? name
+                        : resourceId.getNamespace() + ":" + name;
+        try (var reader =
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8)) {
+            return parse(type, id, gson.fromJson(reader, JsonObject.class));
+        } catch (IOException | RuntimeException e) {
+            ActionArms.LOGGER.error("Failed to load ActionArms data: {}", resourceId, e);
+            return null;
+        }
+    }
+
+    private static <T extends IData> Entry<T> parse(Type<T> type, String id, JsonObject json) {
+        var base = AADataRegistry.getBuiltIn(type.type, id).orElse(null);
+        return new Entry<>(type, id, json, type.parser.parse(id, json, base));
+    }
+
+    private static Loaded buildLoaded(List<CompletableFuture<Entry<?>>> tasks) {
+        var builder = AADataRegistry.builtInBuilder();
+        var entries = new ArrayList<Entry<?>>();
+        // 見つけた順に重ねるため、後のデータパックが優先される
+        for (var task : tasks) {
+            var entry = task.join();
+            if (entry != null) {
+                entry.addTo(builder);
+                entries.add(entry);
+            }
+        }
+        ActionArms.LOGGER.info("Loaded {} ActionArms data definitions", entries.size());
+        return new Loaded(builder.build(), List.copyOf(entries));
+    }
+
+    /** 最後に読み込んだ定義の世代。読み込み直すたびに変わる。 */
+    public int getLoadedGeneration() {
+        return this.loaded.snapshot.getGeneration();
+    }
+
+    /** 最後に読み込んだ定義を、元のJSONのまま書き込む。 */
+    public void write(PacketByteBuf buf) {
+        var entries = this.loaded.entries;
+        buf.writeVarInt(entries.size());
+        for (Entry<?> entry : entries) {
+            buf.writeVarInt(Type.VALUES.indexOf(entry.type));
+            buf.writeString(entry.id);
+            buf.writeString(entry.json.toString());
+        }
+    }
+
+    /** {@link #write} で書いた定義を、組み込みの定義に重ねて組み立て直す。 */
+    public DataSnapshot read(PacketByteBuf buf) {
+        var builder = AADataRegistry.builtInBuilder();
+        int size = buf.readVarInt();
+        for (int i = 0; i < size; i++) {
+            int typeIndex = buf.readVarInt();
+            String id = buf.readString();
+            String json = buf.readString();
+            if (typeIndex < 0 || typeIndex >= Type.VALUES.size()) {
+                ActionArms.LOGGER.error("Unknown ActionArms data type {}: {}", typeIndex, id);
+                continue;
+            }
+            try {
+                parse(Type.VALUES.get(typeIndex), id, gson.fromJson(json, JsonObject.class))
+                        .addTo(builder);
+            } catch (RuntimeException e) {
+                ActionArms.LOGGER.error("Failed to read ActionArms data: {}", id, e);
+            }
+        }
+        return builder.build();
+    }
+
+    // 解析
+
+    private static BulletData parseBullet(
+            String id, JsonObject json, @Nullable BulletData base) {
+        return new BulletData(
+                id,
+                getFloat(json, "damage", base == null ? null : base.damage()),
+                getFloat(json, "headshot_damage", base == null ? null : base.headshotDamage()),
+                JsonHelper.getBoolean(json, "hitscan", base != null && base.hitscan()));
+    }
+
+    private static MagazineData parseMagazine(
+            String id, JsonObject json, @Nullable MagazineData base) {
+        Predicate<BulletData> allowBullet;
+        if (json.has("allowed_bullets")) {
+            var allowed = new HashSet<String>();
+            for (JsonElement element : JsonHelper.getArray(json, "allowed_bullets")) {
+                allowed.add(JsonHelper.asString(element, "allowed_bullets"));
+            }
+            allowBullet = bullet -> allowed.contains(bullet.getId());
+        } else {
+            allowBullet = base == null ? bullet -> true : base.allowBullet();
+        }
+        return new MagazineData(
+                id, getInt(json, "capacity", base == null ? null : base.capacity()), allowBullet);
+    }
+
+    private static LeverActionGunData parseLeverActionGun(
+            String id, JsonObject json, @Nullable LeverActionGunData base) {
+        return new LeverActionGunData(
+                id,
+                getFloat(json, "fire_cool_length", base == null ? null : base.fireCoolLength()),
+                getFloat(json, "lever_down_length", base == null ? null : base.leverDownLength()),
+                getFloat(json, "lever_up_length", base == null ? null : base.leverUpLength()),
+                getFloat(json, "cycle_cool_length", base == null ? null : base.cycleCoolLength()),
+                getFloat(
+                        json,
+                        "cycle_cancelable_length",
+                        base == null ? null : base.cycleCancelableLength()),
+                getFloat(json, "reload_length", base == null ? null : base.reloadLength()),
+                getFloat(json, "reload_cool_length", base == null ? null : base.reloadCoolLength()),
+                getFloat(
+                        json,
+                        "reload_cancelable_length",
+                        base == null ? null : base.reloadCancelableLength()),
+                getInt(json, "reload_count", base == null ? null : base.reloadCount()),
+                getFloat(json, "base_spread_angle", base == null ? null : base.baseSpreadAngle()),
+                getFloat(json, "aim_spread_angle", base == null ? null : base.aimSpreadAngle()),
+                getFloat(
+                        json,
+                        "movement_spread_increase",
+                        base == null ? null : base.movementSpreadIncrease()));
+    }
+
+    private static SAAGunData parseSAAGun(String id, JsonObject json, @Nullable SAAGunData base) {
+        return new SAAGunData(
+                id,
+                getInt(json, "cylinder_capacity", base == null ? null : base.cylinderCapacity()),
+                getFloat(json, "cock_length", base == null ? null : base.cockLength()),
+                getFloat(json, "fire_cool_length", base == null ? null : base.fireCoolLength()),
+                getFloat(json, "eject_length", base == null ? null : base.ejectLength()),
+                getFloat(json, "load_length", base == null ? null : base.loadLength()),
+                getFloat(json, "base_spread_angle", base == null ? null : base.baseSpreadAngle()),
+                getFloat(json, "aim_spread_angle", base == null ? null : base.aimSpreadAngle()),
+                getFloat(
+                        json,
+                        "movement_spread_increase",
+                        base == null ? null : base.movementSpreadIncrease()));
+    }
+
+    /** 引き継ぐ値がなければ必須項目として読む。 */
+    private static float getFloat(JsonObject json, String key, @Nullable Float fallback) {
+        return fallback == null
+                ? JsonHelper.getFloat(json, key)
+                : JsonHelper.getFloat(json, key, fallback);
+    }
+
+    private static int getInt(JsonObject json, String key, @Nullable Integer fallback) {
+        return fallback == null
+                ? JsonHelper.getInt(json, key)
+                : JsonHelper.getInt(json, key, fallback);
+    }
+
+    @FunctionalInterface
+    private interface Parser<T extends IData> {
+        T parse(String id, JsonObject json, @Nullable T base) throws JsonParseException;
+    }
+
+    private record Type<T extends IData>(Class<T> type, String directory, Parser<T> parser) {
+        private static final List<Type<?>> VALUES =
+                List.of(
+                        new Type<>(BulletData.class, "bullets", AADataLoader::parseBullet),
+                        new Type<>(MagazineData.class, "magazines", AADataLoader::parseMagazine),
+                        new Type<>(
+                                LeverActionGunData.class,
+                                "lever_action_guns",
+                                AADataLoader::parseLeverActionGun),
+                        new Type<>(SAAGunData.class, "saa_guns", AADataLoader::parseSAAGun));
+    }
+
+    private record Entry<T extends IData>(Type<T> type, String id, JsonObject json, T data) {
+        private void addTo(DataSnapshot.Builder builder) {
+            builder.add(this.type.type, this.data);
+        }
+    }
+
+    private record Loaded(DataSnapshot snapshot, List<Entry<?>> entries) {}
+}
@@ -7,15 +7,19 @@ import net.minecraft.nbt.NbtList;
 import net.sistr.actionarms.ActionArms;
 import org.jetbrains.annotations.Nullable;
 
+/**
+ * 銃、マガジン、弾の定義。
+ *
+ * <p>組み込みの定義にデータパックの定義を重ねたスナップショットを持ち、データパックの再読み込みのたびに丸ごと差し替える。
+ */
 public class AADataRegistry {
-    private static final Map<Class<? extends IData>, Map<String, ? extends IData>> registries =
-            new HashMap<>();
-
+    // 組み込みの定義。データパックで同じIDを定義すると上書きされる
     public static final BulletData MEDIUM_CALIBER_BULLET =
             new BulletData(
                     "medium_caliber_bullet",
                     ActionArms.getConfig().game.medium_caliber_bullet_damage,
-                    ActionArms.getConfig().game.medium_caliber_bullet_headshot_damage);
+                    ActionArms.getConfig().game.medium_caliber_bullet_headshot_damage,
+                    /* hitscan= */ true);
     public static final MagazineData M1873_TUBE_MAGAZINE =
             new MagazineData("m1873_magazine", 10, bullet -> true);
     public static final LeverActionGunData M1873 =
@@ -34,53 +38,59 @@ public class AADataRegistry {
                     /* aimSpreadAngle= */ 0.5f,
                     /* movementSpreadIncrease= */ 3.0f);
 
-    @SuppressWarnings("unchecked")
-    public static <T extends IData> Optional<T> getById(Class<T> type, String id) {
-        Map<String, T> typeRegistry = (Map<String, T>) registries.get(type);
-        if (typeRegistry != null) {
-            return Optional.ofNullable(typeRegistry.get(id));
-        }
-        return Optional.empty();
+    private static final DataSnapshot BUILT_IN = builtInBuilder().build();
+    private static volatile DataSnapshot snapshot = BUILT_IN;
+
+    /** 組み込みの定義だけを入れたビルダーを返す。 */
+    public static DataSnapshot.Builder builtInBuilder() {
+        return DataSnapshot.builder()
+                .add(BulletData.class, MEDIUM_CALIBER_BULLET)
+                .add(MagazineData.class, M1873_TUBE_MAGAZINE)
+                .add(LeverActionGunData.class, M1873)
+                .add(SAAGunData.class, COLT_SAA);
     }
 
-    private static void initializeRegistries() {
-        registries.put(BulletData.class, new HashMap<>());
-        registries.put(MagazineData.class, new HashMap<>());
-        registries.put(LeverActionGunData.class, new HashMap<>());
-        registries.put(SAAGunData.class, new HashMap<>());
+    /** 組み込みの定義だけのスナップショット。 */
+    public static DataSnapshot getBuiltInSnapshot() {
+        return BUILT_IN;
     }
 
-    @SuppressWarnings("unchecked")
-    private static <T extends IData> void registerData(Class<T> type, T data) {
-        Map<String, T> typeRegistry = (Map<String, T>) registries.get(type);
-        if (typeRegistry != null) {
-            typeRegistry.put(data.getId(), data);
-        }
+    public static <T extends IData> Optional<T> getBuiltIn(Class<T> type, String id) {
+        return Optional.ofNullable(BUILT_IN.get(type)).flatMap(registry -> registry.getById(id));
+    }
+
+    public static DataSnapshot getSnapshot() {
+        return snapshot;
     }
 
-    static {
-        initializeRegistries();
-        registerData(BulletData.class, MEDIUM_CALIBER_BULLET);
-        registerData(MagazineData.class, M1873_TUBE_MAGAZINE);
-        registerData(LeverActionGunData.class, M1873);
-        registerData(SAAGunData.class, COLT_SAA);
+    /** 定義をまとめて差し替える。読み込み中の定義が途中まで見えることはない。 */
+    public static void publish(DataSnapshot snapshot) {
+        AADataRegistry.snapshot = snapshot;
+    }
+
+    public static <T extends IData> Optional<DataRegistry<T>> getRegistry(Class<T> type) {
+        return Optional.ofNullable(snapshot.get(type));
+    }
+
+    /** 同じIDの、今の定義を返す。見つからなければそのまま返す。 */
+    public static <T extends IData> T current(Class<T> type, T data) {
+        return getById(type, data.getId()).orElse(data);
+    }
+
+    public static <T extends IData> Optional<T> getById(Class<T> type, String id) {
+        return getRegistry(type).flatMap(registry -> registry.getById(id));
     }
 
-    @SuppressWarnings("unchecked")
     public static <T extends IData> Set<String> getRegisteredIds(Class<T> type) {
-        Map<String, T> typeRegistry = (Map<String, T>) registries.get(type);
-        return typeRegistry != null ? typeRegistry.keySet() : Set.of();
+        return getRegistry(type).map(DataRegistry::getIds).orElse(Set.of());
     }
 
-    @SuppressWarnings("unchecked")
     public static <T extends IData> Collection<T> getAllData(Class<T> type) {
-        Map<String, T> typeRegistry = (Map<String, T>) registries.get(type);
-        return typeRegistry != null ? typeRegistry.values() : Set.of();
+        return getRegistry(type).map(DataRegistry::values).orElse(Set.of());
     }
 
     public static <T extends IData> int getRegisteredCount(Class<T> type) {
-        Map<String, ? extends IData> typeRegistry = registries.get(type);
-        return typeRegistry != null ? typeRegistry.size() : 0;
+        return getRegistry(type).map(DataRegistry::size).orElse(0);
     }
 
     public static <T extends IData> Optional<T> read(Class<T> type, NbtCompound nbt) {
@@ -97,9 +107,14 @@ public class AADataRegistry {
 
     public static <T extends IData> List<T> readAll(Class<T> type, NbtList nbt) {
         List<T> dataList = new ArrayList<>();
+        var registry = getRegistry(type).orElse(null);
+        if (registry == null) {
+            return dataList;
+        }
+        // 種類ごとの登録先は一度だけ引く
         for (NbtElement elem : nbt) {
-            if (elem instanceof NbtCompound nbtCompound) {
-                read(type, nbtCompound).ifPresent(dataList::add);
+            if (elem instanceof NbtCompound nbtCompound && nbtCompound.contains("id")) {
+                registry.getById(nbtCompound.getString("id")).ifPresent(dataList::add);
             }
         }
         return dataList;
@@ -1,6 +1,14 @@
 package net.sistr.actionarms.item.data;
 
-public record BulletData(String id, float damage, float headshotDamage) implements IData {
+/**
+ * @param hitscan 発射速度が設定値以上なら、弾道全体を発射したtickのうちに判定するか
+ */
+public record BulletData(String id, float damage, float headshotDamage, boolean hitscan)
+        implements IData {
+    public BulletData(String id, float damage, float headshotDamage) {
+        this(id, damage, headshotDamage, false);
+    }
+
     @Override
     public String getId() {
         return this.id;
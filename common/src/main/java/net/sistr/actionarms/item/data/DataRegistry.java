@@ -0,0 +1,54 @@
+package net.sistr.actionarms.item.data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * 1種類のデータの登録先。
+ *
+ * <p>文字列IDから引き、全体は登録順に返す。
+ */
+public class DataRegistry<T extends IData> {
+    private final Map<String, T> byId = new HashMap<>();
+    private final List<T> values = new ArrayList<>();
+    private boolean frozen;
+
+    public void register(T data) {
+        if (this.frozen) {
+            throw new IllegalStateException("Registry is frozen");
+        }
+        var id = data.getId();
+        if (this.byId.containsKey(id)) {
+            throw new IllegalStateException("Duplicate data id: " + id);
+        }
+        this.byId.put(id, data);
+        this.values.add(data);
+    }
+
+    /** 以降の登録を禁じる。公開した後に中身が変わらないようにする。 */
+    public void freeze() {
+        this.frozen = true;
+    }
+
+    public Optional<T> getById(String id) {
+        return Optional.ofNullable(this.byId.get(id));
+    }
+
+    public Set<String> getIds() {
+        return Collections.unmodifiableSet(this.byId.keySet());
+    }
+
+    public Collection<T> values() {
+        return Collections.unmodifiableList(this.values);
+    }
+
+    public int size() {
+        return this.values.size();
+    }
+}
@@ -0,0 +1,65 @@
+package net.sistr.actionarms.item.data;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * ある時点の全てのデータ定義。作った後は変更されないため、どのスレッドからでもそのまま読める。
+ *
+ * <p>定義の再読み込みでは新しいスナップショットを丸ごと作り、{@link AADataRegistry#publish} で一度に差し替える。
+ */
+public final class DataSnapshot {
+    private static final AtomicInteger GENERATIONS = new AtomicInteger();
+    private final Map<Class<? extends IData>, DataRegistry<?>> registries;
+    private final int generation;
+
+    private DataSnapshot(Map<Class<? extends IData>, DataRegistry<?>> registries) {
+        this.registries = registries;
+        this.generation = GENERATIONS.incrementAndGet();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public <T extends IData> DataRegistry<T> get(Class<T> type) {
+        return (DataRegistry<T>) this.registries.get(type);
+    }
+
+    /** スナップショットごとに異なる値。読み込んだ定義を使い回してよいかの判定に使う。 */
+    public int getGeneration() {
+        return this.generation;
+    }
+
+    public static class Builder {
+        private final Map<Class<? extends IData>, Map<String, IData>> entries =
+                new LinkedHashMap<>();
+
+        /** 同じIDが既にあれば置き換える。順番は最初に追加した時のまま。 */
+        public <T extends IData> Builder add(Class<T> type, T data) {
+            this.entries.computeIfAbsent(type, t -> new LinkedHashMap<>()).put(data.getId(), data);
+            return this;
+        }
+
+        public DataSnapshot build() {
+            Map<Class<? extends IData>, DataRegistry<?>> registries = new HashMap<>();
+            this.entries.forEach((type, values) -> registries.put(type, createRegistry(values)));
+            return new DataSnapshot(Map.copyOf(registries));
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T extends IData> DataRegistry<T> createRegistry(Map<String, IData> values) {
+            var registry = new DataRegistry<T>();
+            for (IData data : values.values()) {
+                registry.register((T) data);
+            }
+            registry.freeze();
+            return registry;
+        }
+    }
+}
@@ -1,14 +1,17 @@
 package net.sistr.actionarms.item.util;
 
 import java.util.UUID;
-import net.minecraft.world.World;
-import net.sistr.actionarms.network.ItemAnimationEventPacket;
+import net.minecraft.entity.Entity;
+import net.sistr.actionarms.network.ServerReplicationManager;
 
 public interface AnimationContext {
 
-    static AnimationContext of(World world, UUID uuid) {
+    /**
+     * @param user 銃を持っているエンティティ。これを追跡しているプレイヤーにだけ送る
+     */
+    static AnimationContext of(Entity user, UUID uuid) {
         return (animation, seconds) ->
-                ItemAnimationEventPacket.sendS2C(world, uuid, animation, seconds);
+                ServerReplicationManager.INSTANCE.sendAnimation(user, uuid, animation, seconds);
     }
 
     void setAnimation(String animation, float seconds);
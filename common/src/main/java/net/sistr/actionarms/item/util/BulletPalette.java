@@ -0,0 +1,106 @@
+package net.sistr.actionarms.item.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.nbt.NbtList;
+import net.minecraft.nbt.NbtString;
+import net.sistr.actionarms.item.data.AADataRegistry;
+import net.sistr.actionarms.item.data.BulletData;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * 薬室とマガジンの中身を1バイトずつに詰めて保存するための、弾の種類の一覧。
+ *
+ * <p>弾のIDは一覧に一度だけ書き、各薬莢は一覧の番号で表す。番号の0は空、1は空薬莢で、2以降が一覧の弾に対応する。
+ */
+public class BulletPalette {
+    /** 詰めた形式の版。古い形式のNBTとの見分けに使う */
+    public static final byte FORMAT_VERSION = 1;
+
+    public static final int EMPTY = 0;
+    public static final int SPENT = 1;
+    private static final int FIRST_BULLET = 2;
+    private static final int MAX_BULLETS = 0xFF - FIRST_BULLET + 1;
+
+    // 読み込んだIDが見つからなければnull
+    private final List<BulletData> bullets = new ArrayList<>();
+
+    /** 版を持たないNBTは、弾ごとにNbtCompoundを持つ以前の形式として読む。 */
+    public static boolean isLegacyFormat(NbtCompound nbt) {
+        return nbt.getByte("v") < FORMAT_VERSION;
+    }
+
+    public static BulletPalette read(NbtCompound nbt) {
+        return read(nbt.getList("palette", NbtElement.STRING_TYPE));
+    }
+
+    public static BulletPalette read(NbtList list) {
+        var registry = AADataRegistry.getRegistry(BulletData.class);
+        return read(list, id -> registry.flatMap(bullets -> bullets.getById(id)));
+    }
+
+    public static BulletPalette read(
+            NbtList list, Function<String, Optional<BulletData>> resolver) {
+        var palette = new BulletPalette();
+        for (int i = 0; i < list.size(); i++) {
+            palette.bullets.add(resolver.apply(list.getString(i)).orElse(null));
+        }
+        return palette;
+    }
+
+    /** 書き込み用に新しく作った一覧を書く。 */
+    public NbtList write() {
+        var list = new NbtList();
+        for (BulletData bullet : this.bullets) {
+            list.add(NbtString.of(bullet.getId()));
+        }
+        return list;
+    }
+
+    public byte encode(@Nullable Cartridge cartridge) {
+        if (cartridge == null) {
+            return EMPTY;
+        }
+        var bullet = cartridge.getBullet();
+        return bullet.isPresent() ? encode(bullet.get()) : SPENT;
+    }
+
+    public byte encode(BulletData bullet) {
+        int index = this.bullets.indexOf(bullet);
+        if (index == -1) {
+            if (this.bullets.size() >= MAX_BULLETS) {
+                throw new IllegalStateException("Too many bullet types: " + this.bullets.size());
+            }
+            index = this.bullets.size();
+            this.bullets.add(bullet);
+        }
+        return (byte) (index + FIRST_BULLET);
+    }
+
+    /** 見つからない弾は、以前の形式と同様に空薬莢として読む。 */
+    @Nullable
+    public Cartridge decodeCartridge(byte code) {
+        int value = Byte.toUnsignedInt(code);
+        if (value == EMPTY) {
+            return null;
+        }
+        return new Cartridge(value == SPENT ? null : decode(value));
+    }
+
+    /** 弾でない番号や見つからない弾ならnull。 */
+    @Nullable
+    public BulletData decodeBullet(byte code) {
+        int value = Byte.toUnsignedInt(code);
+        return value < FIRST_BULLET ? null : decode(value);
+    }
+
+    @Nullable
+    private BulletData decode(int value) {
+        int index = value - FIRST_BULLET;
+        return index < this.bullets.size() ? this.bullets.get(index) : null;
+    }
+}
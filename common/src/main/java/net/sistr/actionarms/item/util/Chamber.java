@@ -7,6 +7,7 @@ import org.jetbrains.annotations.Nullable;
 
 public class Chamber {
     @Nullable private Cartridge cartridge;
+    private int version;
 
     public Chamber(@Nullable Cartridge cartridge) {
         this.cartridge = cartridge;
@@ -22,6 +23,7 @@ public class Chamber {
             return false;
         }
         this.cartridge = cartridge;
+        this.version++;
         return true;
     }
 
@@ -46,6 +48,7 @@ public class Chamber {
         if (this.cartridge == null) {
             return Optional.empty();
         }
+        this.version++;
         return this.cartridge.spend();
     }
 
@@ -55,10 +58,26 @@ public class Chamber {
         }
         var result = Optional.of(this.cartridge);
         this.cartridge = null;
+        this.version++;
         return result;
     }
 
+    /** 中身が変わるたびに増える値。書き戻しが必要か調べるのに使う。 */
+    public int getVersion() {
+        return this.version;
+    }
+
+    public byte encode(BulletPalette palette) {
+        return palette.encode(this.cartridge);
+    }
+
+    public void decode(BulletPalette palette, byte code) {
+        this.version++;
+        this.cartridge = palette.decodeCartridge(code);
+    }
+
     public void read(NbtCompound nbt) {
+        this.version++;
         this.cartridge = null;
         if (nbt.contains("cartridge")) {
             this.cartridge = new Cartridge(null);
@@ -8,6 +8,7 @@ import net.sistr.actionarms.item.data.BulletData;
 public class Cylinder {
     private final Chamber[] chambers;
     private int firingIndex;
+    private int version;
 
     public Cylinder(int capacity) {
         this.chambers = new Chamber[capacity];
@@ -22,11 +23,13 @@ public class Cylinder {
     /** コック回転（時計回り）。次の薬室を射撃位置に持ってくる。 */
     public void cockRotate() {
         firingIndex = (firingIndex - 1 + chambers.length) % chambers.length;
+        version++;
     }
 
     /** 装填回転（反時計回り）。次の薬室をゲート位置に持ってくる。 */
     public void loadRotate() {
         firingIndex = (firingIndex + 1) % chambers.length;
+        version++;
     }
 
     // === 射撃位置の操作 ===
@@ -103,10 +106,29 @@ public class Cylinder {
         return chambers[index];
     }
 
+    /** 回転か、いずれかの薬室の中身が変わるたびに増える値。 */
+    public int getVersion() {
+        int result = version;
+        for (Chamber c : chambers) {
+            result += c.getVersion();
+        }
+        return result;
+    }
+
     // === NBT ===
 
     public void read(NbtCompound nbt) {
         this.firingIndex = nbt.getInt("firingIndex");
+        this.version++;
+        if (!BulletPalette.isLegacyFormat(nbt)) {
+            var palette = BulletPalette.read(nbt);
+            byte[] states = nbt.getByteArray("states");
+            for (int i = 0; i < chambers.length; i++) {
+                chambers[i].decode(palette, i < states.length ? states[i] : BulletPalette.EMPTY);
+            }
+            return;
+        }
+        // 薬室ごとにNbtCompoundを持つ以前の形式
         NbtList list = nbt.getList("chambers", 10);
         for (int i = 0; i < chambers.length && i < list.size(); i++) {
             chambers[i].read(list.getCompound(i));
@@ -115,12 +137,14 @@ public class Cylinder {
 
     public void write(NbtCompound nbt) {
         nbt.putInt("firingIndex", this.firingIndex);
-        NbtList list = new NbtList();
-        for (Chamber chamber : chambers) {
-            NbtCompound chamberNbt = new NbtCompound();
-            chamber.write(chamberNbt);
-            list.add(chamberNbt);
+        var palette = new BulletPalette();
+        byte[] states = new byte[chambers.length];
+        for (int i = 0; i < chambers.length; i++) {
+            states[i] = chambers[i].encode(palette);
         }
-        nbt.put("chambers", list);
+        nbt.putByte("v", BulletPalette.FORMAT_VERSION);
+        nbt.put("palette", palette.write());
+        nbt.putByteArray("states", states);
+        nbt.remove("chambers");
     }
 }
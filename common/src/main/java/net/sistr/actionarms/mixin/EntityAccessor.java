@@ -0,0 +1,14 @@
+package net.sistr.actionarms.mixin;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import net.minecraft.entity.Entity;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+@Mixin(Entity.class)
+public interface EntityAccessor {
+    @Accessor("CURRENT_ID")
+    static AtomicInteger getCurrentId() {
+        throw new AssertionError();
+    }
+}
@@ -0,0 +1,12 @@
+package net.sistr.actionarms.mixin;
+
+import java.util.Set;
+import net.minecraft.server.network.EntityTrackingListener;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+@Mixin(targets = "net.minecraft.server.world.ThreadedAnvilChunkStorage$EntityTracker")
+public interface EntityTrackerAccessor {
+    @Accessor
+    Set<EntityTrackingListener> getListeners();
+}
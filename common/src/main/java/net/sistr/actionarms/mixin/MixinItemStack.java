@@ -1,13 +1,26 @@
 package net.sistr.actionarms.mixin;
 
+import java.util.UUID;
 import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NbtCompound;
+import net.sistr.actionarms.item.HasUniqueIdCache;
+import net.sistr.actionarms.item.component.ComponentCache;
+import net.sistr.actionarms.item.component.HasComponentCache;
+import org.jetbrains.annotations.Nullable;
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
 @Mixin(ItemStack.class)
-public class MixinItemStack {
+public class MixinItemStack implements HasComponentCache, HasUniqueIdCache {
+    @Shadow @Nullable private NbtCompound nbt;
+    @Unique @Nullable private ComponentCache actionArms$componentCache;
+    @Unique @Nullable private UUID actionArms$uniqueId;
+    // UUIDを読んだ時のNBT。これと違うNBTになっていれば読み直す
+    @Unique @Nullable private NbtCompound actionArms$uniqueIdNbt;
 
     @Inject(method = "canCombine", at = @At("HEAD"))
     private static void onCanCombine(
@@ -19,4 +32,49 @@ public class MixinItemStack {
             otherStack.setNbt(null);
         }
     }
+
+    // NBTが外から参照される前に、キャッシュしたコンポーネントの変更を書き戻す
+    @Inject(method = {"getNbt", "getOrCreateNbt"}, at = @At("HEAD"))
+    private void onGetNbt(CallbackInfoReturnable<NbtCompound> cir) {
+        ComponentCache.flush((ItemStack) (Object) this);
+    }
+
+    @Inject(method = "copy", at = @At("HEAD"))
+    private void onCopy(CallbackInfoReturnable<ItemStack> cir) {
+        ComponentCache.flush((ItemStack) (Object) this);
+    }
+
+    @Inject(method = "writeNbt", at = @At("HEAD"))
+    private void onWriteNbt(NbtCompound nbt, CallbackInfoReturnable<NbtCompound> cir) {
+        ComponentCache.flush((ItemStack) (Object) this);
+    }
+
+    @Override
+    public @Nullable ComponentCache actionArms$getComponentCache() {
+        return this.actionArms$componentCache;
+    }
+
+    @Override
+    public void actionArms$setComponentCache(@Nullable ComponentCache cache) {
+        this.actionArms$componentCache = cache;
+    }
+
+    @Override
+    public @Nullable NbtCompound actionArms$getRawNbt() {
+        return this.nbt;
+    }
+
+    @Override
+    public @Nullable UUID actionArms$getCachedUniqueId() {
+        if (this.nbt == null || this.nbt != this.actionArms$uniqueIdNbt) {
+            return null;
+        }
+        return this.actionArms$uniqueId;
+    }
+
+    @Override
+    public void actionArms$setCachedUniqueId(@Nullable UUID uuid) {
+        this.actionArms$uniqueId = uuid;
+        this.actionArms$uniqueIdNbt = uuid == null ? null : this.nbt;
+    }
 }
@@ -0,0 +1,17 @@
+package net.sistr.actionarms.mixin;
+
+import net.minecraft.entity.player.PlayerInventory;
+import net.sistr.actionarms.entity.util.AmmoIndex;
+import net.sistr.actionarms.entity.util.HasAmmoIndex;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+
+@Mixin(PlayerInventory.class)
+public class MixinPlayerInventory implements HasAmmoIndex {
+    @Unique private final AmmoIndex actionArms$ammoIndex = new AmmoIndex();
+
+    @Override
+    public AmmoIndex actionArms$getAmmoIndex() {
+        return this.actionArms$ammoIndex;
+    }
+}
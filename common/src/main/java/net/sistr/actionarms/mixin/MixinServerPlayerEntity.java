@@ -1,10 +1,7 @@
 package net.sistr.actionarms.mixin;
 
 import com.mojang.authlib.GameProfile;
-import java.util.ArrayList;
-import java.util.List;
 import net.minecraft.entity.player.PlayerEntity;
-import net.minecraft.item.ItemStack;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
@@ -22,17 +19,11 @@ public abstract class MixinServerPlayerEntity extends PlayerEntity
 
     @Unique
     private final GunController actionArms$gunController =
-            new GunController(
-                    (ServerPlayerEntity) (Object) this,
-                    actionArms$keyInputManager,
-                    this::actionArms$getItems);
+            new GunController((ServerPlayerEntity) (Object) this, actionArms$keyInputManager);
 
     @Unique
     private final SAAGunController actionArms$saaGunController =
-            new SAAGunController(
-                    (ServerPlayerEntity) (Object) this,
-                    actionArms$keyInputManager,
-                    this::actionArms$getItems);
+            new SAAGunController((ServerPlayerEntity) (Object) this, actionArms$keyInputManager);
 
     public MixinServerPlayerEntity(World world, BlockPos pos, float yaw, GameProfile gameProfile) {
         super(world, pos, yaw, gameProfile);
@@ -53,19 +44,4 @@ public abstract class MixinServerPlayerEntity extends PlayerEntity
         this.actionArms$gunController.tick();
         this.actionArms$saaGunController.tick();
     }
-
-    @Unique
-    private List<ItemStack> actionArms$getItems() {
-        var items = new ArrayList<ItemStack>();
-
-        var inv = this.getInventory();
-        for (int i = 0; i < inv.size(); i++) {
-            var stack = inv.getStack(i);
-            if (stack.isEmpty()) {
-                continue;
-            }
-            items.add(stack);
-        }
-        return items;
-    }
 }
@@ -3,7 +3,10 @@ package net.sistr.actionarms.mixin;
 import java.util.function.BooleanSupplier;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.world.EntityList;
+import net.sistr.actionarms.ActionArms;
+import net.sistr.actionarms.entity.util.BulletManager;
 import net.sistr.actionarms.entity.util.EntityRecordManager;
+import net.sistr.actionarms.entity.util.HasBulletManager;
 import net.sistr.actionarms.entity.util.HasEntityRecordManager;
 import org.spongepowered.asm.mixin.Final;
 import org.spongepowered.asm.mixin.Mixin;
@@ -14,17 +17,28 @@ import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
 @Mixin(ServerWorld.class)
-public abstract class MixinServerWorld implements HasEntityRecordManager {
+public abstract class MixinServerWorld implements HasEntityRecordManager, HasBulletManager {
     @Shadow @Final private EntityList entityList;
 
     @Unique
-    private final EntityRecordManager actionArms$entityRecordManager = new EntityRecordManager();
+    private final EntityRecordManager actionArms$entityRecordManager =
+            new EntityRecordManager(
+                    ActionArms.getConfig().server.getLagCompensationHistoryTicks());
+
+    @Unique
+    private final BulletManager actionArms$bulletManager =
+            new BulletManager((ServerWorld) (Object) this);
 
     @Override
     public EntityRecordManager actionArms$getEntityRecordManager() {
         return actionArms$entityRecordManager;
     }
 
+    @Override
+    public BulletManager actionArms$getBulletManager() {
+        return actionArms$bulletManager;
+    }
+
     @Inject(
             method = "tick",
             at =
@@ -35,5 +49,7 @@ public abstract class MixinServerWorld implements HasEntityRecordManager {
     private void onTickEntityListForeach(BooleanSupplier shouldKeepTicking, CallbackInfo ci) {
         this.actionArms$entityRecordManager.preWorldTick(
                 (ServerWorld) (Object) this, this.entityList);
+        // 記録したラグ補償用の状態を使って弾丸を動かす
+        this.actionArms$bulletManager.tick();
     }
 }
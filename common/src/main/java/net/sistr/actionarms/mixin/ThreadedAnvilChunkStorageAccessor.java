@@ -0,0 +1,13 @@
+package net.sistr.actionarms.mixin;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import net.minecraft.server.world.ThreadedAnvilChunkStorage;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+@Mixin(ThreadedAnvilChunkStorage.class)
+public interface ThreadedAnvilChunkStorageAccessor {
+    /** 値は {@link EntityTrackerAccessor} として扱う。 */
+    @Accessor
+    Int2ObjectMap<?> getEntityTrackers();
+}
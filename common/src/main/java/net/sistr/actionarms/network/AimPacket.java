@@ -1,7 +1,6 @@
 package net.sistr.actionarms.network;
 
 import dev.architectury.networking.NetworkManager;
-import io.netty.buffer.Unpooled;
 import net.minecraft.network.PacketByteBuf;
 import net.minecraft.util.Identifier;
 import net.sistr.actionarms.ActionArms;
@@ -9,6 +8,7 @@ import net.sistr.actionarms.entity.util.HasAimManager;
 
 public class AimPacket {
     public static final Identifier ID = new Identifier(ActionArms.MOD_ID, "aim");
+    private static final int SIZE = 1;
 
     public static void sendC2S(boolean aim) {
         var buf = createC2SPacket(aim);
@@ -16,7 +16,7 @@ public class AimPacket {
     }
 
     public static PacketByteBuf createC2SPacket(boolean aim) {
-        var buf = new PacketByteBuf(Unpooled.buffer());
+        var buf = PacketBuffers.fixed(SIZE);
         buf.writeBoolean(aim);
         return buf;
     }
@@ -0,0 +1,64 @@
+package net.sistr.actionarms.network;
+
+import dev.architectury.networking.NetworkManager;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.util.Identifier;
+import net.sistr.actionarms.ActionArms;
+import net.sistr.actionarms.item.data.AADataLoader;
+import net.sistr.actionarms.item.data.AADataRegistry;
+
+/**
+ * データパックで読み込んだ定義をクライアントへ送る。
+ *
+ * <p>クライアントも銃のタイミングや拡散を予測するため、サーバーと同じ定義が要る。参加した時と、定義を読み込み直した後に送る。
+ */
+public class DataSyncPacket {
+    public static final Identifier ID = new Identifier(ActionArms.MOD_ID, "data_sync");
+    // 定義は数個のJSONなので小さい
+    private static final int INITIAL_CAPACITY = 256;
+    // 最後に全員へ送った定義の世代
+    private static int syncedGeneration;
+    // サーバーから受け取った定義を使っているか
+    private static boolean received;
+
+    public static void sendS2C(ServerPlayerEntity player) {
+        // 同じプロセスのクライアントは、サーバーが差し替えた定義をそのまま使っている
+        if (player.server.isHost(player.getGameProfile())) {
+            return;
+        }
+        var buf = PacketBuffers.growable(INITIAL_CAPACITY);
+        AADataLoader.INSTANCE.write(buf);
+        NetworkManager.sendToPlayer(player, ID, buf);
+    }
+
+    /** 定義を読み込み直していれば、全員へ送り直す。 */
+    public static void syncIfReloaded(MinecraftServer server) {
+        int generation = AADataLoader.INSTANCE.getLoadedGeneration();
+        if (generation == syncedGeneration) {
+            return;
+        }
+        syncedGeneration = generation;
+        for (ServerPlayerEntity player : server.getPlayerManager().getPlayerList()) {
+            sendS2C(player);
+        }
+    }
+
+    public static void receiveS2C(PacketByteBuf buf, NetworkManager.PacketContext context) {
+        var snapshot = AADataLoader.INSTANCE.read(buf);
+        context.queue(
+                () -> {
+                    AADataRegistry.publish(snapshot);
+                    received = true;
+                });
+    }
+
+    /** 接続を切った時に呼ぶ。受け取った定義を捨てて組み込みの定義へ戻す。 */
+    public static void resetClient() {
+        if (received) {
+            AADataRegistry.publish(AADataRegistry.getBuiltInSnapshot());
+            received = false;
+        }
+    }
+}
@@ -1,8 +1,6 @@
 package net.sistr.actionarms.network;
 
 import dev.architectury.networking.NetworkManager;
-import io.netty.buffer.Unpooled;
-import java.util.HashMap;
 import java.util.Map;
 import net.minecraft.network.PacketByteBuf;
 import net.minecraft.util.Identifier;
@@ -10,8 +8,16 @@ import net.sistr.actionarms.ActionArms;
 import net.sistr.actionarms.entity.util.HasKeyInputManager;
 import net.sistr.actionarms.entity.util.KeyInputManager;
 
+/**
+ * キー入力の変化を送る。
+ *
+ * <p>変わったキーと押されているキーを、それぞれ {@link KeyInputManager.Key#ordinal()} 番目のbitに立てた1バイトずつで送る。
+ */
 public class KeyInputPacket {
     public static final Identifier ID = new Identifier(ActionArms.MOD_ID, "key_input");
+    private static final int SIZE = 2;
+    // 1バイトに収まるよう、キーは8個まで
+    private static final KeyInputManager.Key[] KEYS = KeyInputManager.Key.values();
 
     public static void sendC2S(Map<KeyInputManager.Key, Boolean> keyStates) {
         var buf = createC2SPacket(keyStates);
@@ -19,44 +25,38 @@ public class KeyInputPacket {
     }
 
     public static PacketByteBuf createC2SPacket(Map<KeyInputManager.Key, Boolean> keyStates) {
-        var buf = new PacketByteBuf(Unpooled.buffer());
-        // キーの数を書き込む
-        buf.writeVarInt(keyStates.size());
-        // 各キーの状態を書き込む
-        keyStates.forEach(
-                (key, pressed) -> {
-                    buf.writeVarInt(key.ordinal());
-                    buf.writeBoolean(pressed);
-                });
+        var buf = PacketBuffers.fixed(SIZE);
+        int changed = 0;
+        int pressed = 0;
+        for (var entry : keyStates.entrySet()) {
+            int bit = 1 << entry.getKey().ordinal();
+            changed |= bit;
+            if (entry.getValue()) {
+                pressed |= bit;
+            }
+        }
+        buf.writeByte(changed);
+        buf.writeByte(pressed);
         return buf;
     }
 
     public static void receiveC2S(PacketByteBuf buf, NetworkManager.PacketContext context) {
-        // 受信したキー入力の数を読み取る
-        int count = buf.readVarInt();
-        Map<KeyInputManager.Key, Boolean> keyStates = new HashMap<>();
-
-        // 各キーの状態を読み取る
-        for (int i = 0; i < count; i++) {
-            int keyOrdinal = buf.readVarInt();
-            boolean pressed = buf.readBoolean();
-            KeyInputManager.Key key = KeyInputManager.Key.values()[keyOrdinal];
-            keyStates.put(key, pressed);
-        }
-
+        int changed = buf.readUnsignedByte();
+        int pressed = buf.readUnsignedByte();
         var player = context.getPlayer();
 
         // メインスレッドで処理する
         context.queue(
                 () -> {
-                    // 各キーの状態を更新
-                    keyStates.forEach(
-                            (key, pressed) -> {
-                                var keyInputManager =
-                                        ((HasKeyInputManager) player)
-                                                .actionArms$getKeyInputManager();
-                                keyInputManager.input(key, pressed);
-                            });
+                    var keyInputManager =
+                            ((HasKeyInputManager) player).actionArms$getKeyInputManager();
+                    // 変わったキーの状態だけを更新
+                    for (KeyInputManager.Key key : KEYS) {
+                        int bit = 1 << key.ordinal();
+                        if ((changed & bit) != 0) {
+                            keyInputManager.input(key, (pressed & bit) != 0);
+                        }
+                    }
                 });
     }
 }
@@ -19,9 +19,9 @@ public class Networking {
 
     @Environment(EnvType.CLIENT)
     public static void initClient() {
-        registerClientReceiver(ItemAnimationEventPacket.ID, ItemAnimationEventPacket::receiveS2C);
-        registerClientReceiver(HudStatePacket.ID, HudStatePacket::receiveS2C);
+        registerClientReceiver(ReplicationPacket.ID, ReplicationPacket::receiveS2C);
         registerClientReceiver(RecoilPacket.ID, RecoilPacket::receiveS2C);
+        registerClientReceiver(DataSyncPacket.ID, DataSyncPacket::receiveS2C);
     }
 
     private static void registerServerReceiver(
@@ -0,0 +1,29 @@
+package net.sistr.actionarms.network;
+
+import io.netty.buffer.Unpooled;
+import net.minecraft.network.PacketByteBuf;
+
+/**
+ * パケットの書き込み先をまとめて確保する。
+ *
+ * <p>送ったバッファはMinecraftのパケットが持ったまま解放せず、シングルプレイではそのままクライアントへ渡る。そのため送るバッファは全てヒープから確保し、
+ * 解放の要るプールのバッファは使わない。
+ */
+public final class PacketBuffers {
+    private PacketBuffers() {}
+
+    /** 中身の無いパケット用。確保はしない。 */
+    public static PacketByteBuf empty() {
+        return new PacketByteBuf(Unpooled.EMPTY_BUFFER);
+    }
+
+    /** 大きさの決まったパケット用。ちょうどの大きさで確保し、それ以上は書けない。 */
+    public static PacketByteBuf fixed(int size) {
+        return new PacketByteBuf(Unpooled.buffer(size, size));
+    }
+
+    /** 大きさの決まらないパケット用。書くにつれて育つ。 */
+    public static PacketByteBuf growable(int initialCapacity) {
+        return new PacketByteBuf(Unpooled.buffer(initialCapacity));
+    }
+}
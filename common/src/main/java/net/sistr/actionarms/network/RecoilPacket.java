@@ -1,7 +1,6 @@
 package net.sistr.actionarms.network;
 
 import dev.architectury.networking.NetworkManager;
-import io.netty.buffer.Unpooled;
 import net.minecraft.network.PacketByteBuf;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.util.Identifier;
@@ -16,8 +15,7 @@ public class RecoilPacket {
     }
 
     public static PacketByteBuf createS2CPacket() {
-        var buf = new PacketByteBuf(Unpooled.buffer());
-        return buf;
+        return PacketBuffers.empty();
     }
 
     public static void receiveS2C(PacketByteBuf buf, NetworkManager.PacketContext context) {
@@ -0,0 +1,140 @@
+package net.sistr.actionarms.network;
+
+import dev.architectury.networking.NetworkManager;
+import java.util.UUID;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.util.Identifier;
+import net.sistr.actionarms.ActionArms;
+import net.sistr.actionarms.client.render.gltf.manager.ItemAnimationManager;
+import net.sistr.actionarms.client.render.hud.ClientHudManager;
+import net.sistr.actionarms.hud.HudType;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * サーバーからクライアントへの状態の同期。1tick分のHUDの状態とアニメーションを、プレイヤーごとに1つのフレームにまとめて送る。
+ *
+ * <p>フレームは先頭に通し番号を持ち、番号の後には項目が末尾まで並ぶ。フレームは順番どおりに欠けずに届くため、番号は確かめのためだけにある。
+ * 差分は前のフレームを全て読んでいる前提のため、番号が飛んだり戻ったりすれば警告を出す。
+ *
+ * <p>HUDはチャンネルごとに数値IDを持ち、初めて送る時だけ文字列のIDと種類を添える。以降は数値IDと、前回から変わった項目だけを送る。
+ */
+public class ReplicationPacket {
+    public static final Identifier ID = new Identifier(ActionArms.MOD_ID, "replication");
+    // 各項目の先頭のvarint。下位2bitが操作で、HUDなら残りがチャンネルID
+    private static final int DEFINE = 0;
+    private static final int UPDATE = 1;
+    private static final int REMOVE = 2;
+    private static final int ANIMATION = 3;
+    // 最後に受け取ったフレームの番号。サーバーは1から振る
+    private static int lastSequence;
+
+    public static void sendS2C(ServerPlayerEntity sendPlayer, PacketByteBuf buf) {
+        NetworkManager.sendToPlayer(sendPlayer, ID, buf);
+    }
+
+    public static void writeHeader(PacketByteBuf buf, int sequence) {
+        buf.writeVarInt(sequence);
+    }
+
+    /** HUDのチャンネルを作り、全ての項目を送る。 */
+    public static <T> void writeDefine(
+            PacketByteBuf buf, int channelId, String stateId, HudType<T> type, T state) {
+        buf.writeVarInt(channelId << 2 | DEFINE);
+        buf.writeVarInt(type.getId());
+        buf.writeString(stateId);
+        type.getCodec().write(buf, null, state);
+    }
+
+    public static <T> void writeUpdate(
+            PacketByteBuf buf, int channelId, HudType<T> type, @Nullable T prev, T state) {
+        buf.writeVarInt(channelId << 2 | UPDATE);
+        type.getCodec().write(buf, prev, state);
+    }
+
+    public static void writeRemove(PacketByteBuf buf, int channelId) {
+        buf.writeVarInt(channelId << 2 | REMOVE);
+    }
+
+    public static void writeAnimation(
+            PacketByteBuf buf, UUID uuid, String animationId, float seconds) {
+        buf.writeVarInt(ANIMATION);
+        buf.writeUuid(uuid);
+        buf.writeString(animationId);
+        buf.writeFloat(seconds);
+    }
+
+    public static void receiveS2C(PacketByteBuf buf, NetworkManager.PacketContext context) {
+        // 差分を読むには前回の状態が要るため、メインスレッドで読む。写さずに参照を持ち続ける
+        buf.retain();
+        context.queue(
+                () -> {
+                    try {
+                        read(buf);
+                    } finally {
+                        buf.release();
+                    }
+                });
+    }
+
+    /** 接続を切った時に呼ぶ。 */
+    public static void resetClient() {
+        lastSequence = 0;
+    }
+
+    private static void read(PacketByteBuf buf) {
+        int sequence = buf.readVarInt();
+        // 一周しても比べられるよう、差で比べる
+        int delta = sequence - lastSequence;
+        if (delta <= 0) {
+            ActionArms.LOGGER.warn(
+                    "Discarding stale replication frame {} (last {})", sequence, lastSequence);
+            return;
+        }
+        // 接続して最初のフレームは、どの番号から始まってもよい
+        if (delta != 1 && lastSequence != 0) {
+            ActionArms.LOGGER.warn(
+                    "Replication frames {} to {} were lost; HUD deltas may be stale",
+                    lastSequence + 1,
+                    sequence - 1);
+        }
+        lastSequence = sequence;
+        while (buf.isReadable()) {
+            int header = buf.readVarInt();
+            int channelId = header >>> 2;
+            switch (header & 3) {
+                case DEFINE -> {
+                    var type = HudType.byId(buf.readVarInt());
+                    var stateId = buf.readString();
+                    if (type == null) {
+                        ActionArms.LOGGER.warn(
+                                "Unknown HUD type: {}, discarding the last {} bytes of frame {}",
+                                stateId,
+                                buf.readableBytes(),
+                                sequence);
+                        return;
+                    }
+                    ClientHudManager.INSTANCE.define(channelId, stateId, type, buf);
+                }
+                case UPDATE -> {
+                    // 長さを持たないため、知らないチャンネルの後ろは読めない
+                    if (!ClientHudManager.INSTANCE.update(channelId, buf)) {
+                        ActionArms.LOGGER.warn(
+                                "Unknown HUD channel: {}, discarding the last {} bytes of frame {}",
+                                channelId,
+                                buf.readableBytes(),
+                                sequence);
+                        return;
+                    }
+                }
+                case REMOVE -> ClientHudManager.INSTANCE.remove(channelId);
+                default -> {
+                    UUID uuid = buf.readUuid();
+                    String animationId = buf.readString();
+                    float seconds = buf.readFloat();
+                    ItemAnimationManager.INSTANCE.setAnimation(uuid, animationId, seconds);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package net.sistr.actionarms.network;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import net.minecraft.entity.Entity;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.server.network.EntityTrackingListener;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.sistr.actionarms.mixin.EntityTrackerAccessor;
+import net.sistr.actionarms.mixin.ThreadedAnvilChunkStorageAccessor;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * プレイヤーごとに、そのtickに送る {@link ReplicationPacket} のフレームを溜める。
+ *
+ * <p>溜めたフレームはワールドのtickの終わりに送る。何も書かれなかったプレイヤーには送らない。
+ *
+ * <p>フレームはヒープのバッファへ直接書き、写さずにそのまま送る。送ったバッファはMinecraftのパケットが持っていくため、次のフレームは新しく確保する。
+ * 確保する大きさは前回のフレームに合わせ、書く途中で育ち直さないようにする。
+ */
+public class ServerReplicationManager {
+    public static final ServerReplicationManager INSTANCE = new ServerReplicationManager();
+    private static final int FRAME_CAPACITY = 256;
+    // UUIDとアニメーションIDと秒数
+    private static final int ANIMATION_CAPACITY = 64;
+    private final Map<UUID, Frame> frames = new HashMap<>();
+    // アニメーションを一度だけ書いておく作業用。送らないため使い回す
+    private final PacketByteBuf animationRecord = PacketBuffers.growable(ANIMATION_CAPACITY);
+
+    /** 書き込み先のフレーム。まだ無ければ通し番号を振って始める。 */
+    public PacketByteBuf getFrame(UUID player) {
+        return frames.computeIfAbsent(player, k -> new Frame()).begin();
+    }
+
+    /** 銃を持っているエンティティが見えるプレイヤーにだけ、アニメーションを送る。 */
+    public void sendAnimation(Entity user, UUID uuid, String animationId, float seconds) {
+        if (!(user.getWorld() instanceof ServerWorld world)) {
+            return;
+        }
+        // 一度だけ書き、受け取る全員のフレームへ写す
+        var record = this.animationRecord;
+        record.clear();
+        ReplicationPacket.writeAnimation(record, uuid, animationId, seconds);
+        if (user instanceof ServerPlayerEntity player) {
+            append(player, record);
+        }
+        var storage =
+                (ThreadedAnvilChunkStorageAccessor)
+                        world.getChunkManager().threadedAnvilChunkStorage;
+        var tracker = (EntityTrackerAccessor) storage.getEntityTrackers().get(user.getId());
+        if (tracker != null) {
+            for (EntityTrackingListener listener : tracker.getListeners()) {
+                append(listener.getPlayer(), record);
+            }
+        }
+    }
+
+    private void append(ServerPlayerEntity player, PacketByteBuf record) {
+        getFrame(player.getUuid()).writeBytes(record, record.readerIndex(), record.readableBytes());
+    }
+
+    public void flush(ServerWorld world) {
+        for (ServerPlayerEntity player : world.getPlayers()) {
+            var frame = frames.get(player.getUuid());
+            if (frame != null && frame.buf != null) {
+                ReplicationPacket.sendS2C(player, frame.end());
+            }
+        }
+    }
+
+    public void onPlayerQuit(ServerPlayerEntity player) {
+        frames.remove(player.getUuid());
+    }
+
+    private static class Frame {
+        // 書いている途中のフレーム。送ればnull
+        @Nullable private PacketByteBuf buf;
+        private int sequence;
+        private int lastSize = FRAME_CAPACITY;
+
+        private PacketByteBuf begin() {
+            if (buf == null) {
+                buf = PacketBuffers.growable(lastSize);
+                ReplicationPacket.writeHeader(buf, ++sequence);
+            }
+            return buf;
+        }
+
+        private PacketByteBuf end() {
+            var sent = buf;
+            lastSize = Math.max(FRAME_CAPACITY, sent.writerIndex());
+            buf = null;
+            return sent;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package net.sistr.actionarms.entity;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+import net.minecraft.util.math.Box;
+import net.minecraft.util.math.Vec3d;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class CollisionDetectorTest {
+
+    static BulletEntity.CollisionResult detect(
+            Vec3d sp, double size, Vec3d spVelocity, Box box, Vec3d boxVelocity) {
+        return BulletEntity.CollisionDetector.detectCollision(
+                sp, size, spVelocity, box, boxVelocity);
+    }
+
+    @Nested
+    class 判定 {
+        @Test
+        void 正面から当たる() {
+            var result =
+                    detect(
+                            new Vec3d(0, 0.5, 0),
+                            0.01,
+                            new Vec3d(3, 0, 0),
+                            new Box(1, 0, -0.5, 2, 2, 0.5),
+                            new Vec3d(0, 0, 0));
+            assertTrue(result.isCollisionCurrentTick());
+            assertEquals((1 - 0.01) / 3, result.collisionTime(), 1e-12);
+        }
+
+        @Test
+        void 外れる() {
+            var result =
+                    detect(
+                            new Vec3d(0, 5, 0),
+                            0.01,
+                            new Vec3d(3, 0, 0),
+                            new Box(1, 0, -0.5, 2, 2, 0.5),
+                            new Vec3d(0, 0, 0));
+            assertFalse(result.hasCollision());
+        }
+
+        @Test
+        void 内側にいれば時間0で当たる() {
+            var result =
+                    detect(
+                            new Vec3d(0, 1, 0),
+                            0.01,
+                            new Vec3d(3, 0, 0),
+                            new Box(-0.5, 0, -0.5, 0.5, 2, 0.5),
+                            new Vec3d(0, 0, 0));
+            assertTrue(result.hasCollision());
+            assertEquals(0, result.collisionTime());
+        }
+
+        @Test
+        void 箱が動いて当たる() {
+            var result =
+                    detect(
+                            new Vec3d(0, 1, 0),
+                            0.01,
+                            new Vec3d(0, 0, 0),
+                            new Box(2, 0, -0.5, 3, 2, 0.5),
+                            new Vec3d(-4, 0, 0));
+            assertTrue(result.isCollisionCurrentTick());
+        }
+    }
+
+    @Nested
+    class プリミティブ版 {
+        @Test
+        void 既存の判定と結果が一致する() {
+            var random = new Random(0);
+            var out = new BulletEntity.MutableCollisionResult();
+            for (int i = 0; i < 100000; i++) {
+                double x = random.nextGaussian() * 4;
+                double y = random.nextGaussian() * 4;
+                double z = random.nextGaussian() * 4;
+                // 速度0の軸も混ぜる
+                double vx = random.nextInt(4) == 0 ? 0 : random.nextGaussian() * 3;
+                double vy = random.nextInt(4) == 0 ? 0 : random.nextGaussian() * 3;
+                double vz = random.nextInt(4) == 0 ? 0 : random.nextGaussian() * 3;
+                double minX = random.nextGaussian() * 4;
+                double minY = random.nextGaussian() * 4;
+                double minZ = random.nextGaussian() * 4;
+                double maxX = minX + random.nextDouble() * 2;
+                double maxY = minY + random.nextDouble() * 2;
+                double maxZ = minZ + random.nextDouble() * 2;
+                double bvx = random.nextInt(2) == 0 ? 0 : random.nextGaussian();
+                double bvy = random.nextInt(2) == 0 ? 0 : random.nextGaussian();
+                double bvz = random.nextInt(2) == 0 ? 0 : random.nextGaussian();
+
+                var expected =
+                        reference(
+                                new Vec3d(x, y, z),
+                                0.01f,
+                                new Vec3d(vx, vy, vz),
+                                new Box(minX, minY, minZ, maxX, maxY, maxZ),
+                                new Vec3d(bvx, bvy, bvz));
+                boolean hit =
+                        BulletEntity.CollisionDetector.detectCollision(
+                                x, y, z, 0.01f, vx, vy, vz, minX, minY, minZ, maxX, maxY, maxZ,
+                                bvx, bvy, bvz, out);
+
+                assertEquals(expected.hasCollision(), hit);
+                assertEquals(expected.hasCollision(), out.hasCollision());
+                assertEquals(
+                        Double.doubleToRawLongBits(expected.collisionTime()),
+                        Double.doubleToRawLongBits(out.collisionTime()));
+            }
+        }
+    }
+
+    // 配列と Vec3d/Box を生成していた変更前の実装
+    static BulletEntity.CollisionResult reference(
+            Vec3d sp, double size, Vec3d spVelocity, Box box, Vec3d boxVelocity) {
+        double relX = spVelocity.x - boxVelocity.x;
+        double relY = spVelocity.y - boxVelocity.y;
+        double relZ = spVelocity.z - boxVelocity.z;
+        var expanded =
+                new Box(
+                        box.minX - size,
+                        box.minY - size,
+                        box.minZ - size,
+                        box.maxX + size,
+                        box.maxY + size,
+                        box.maxZ + size);
+        double[] xInterval = referenceAxis(sp.x, relX, expanded.minX, expanded.maxX);
+        double[] yInterval = referenceAxis(sp.y, relY, expanded.minY, expanded.maxY);
+        double[] zInterval = referenceAxis(sp.z, relZ, expanded.minZ, expanded.maxZ);
+        if (xInterval == null || yInterval == null || zInterval == null) {
+            return BulletEntity.CollisionResult.NONE;
+        }
+        double tEnter = Math.max(Math.max(xInterval[0], yInterval[0]), zInterval[0]);
+        double tExit = Math.min(Math.min(xInterval[1], yInterval[1]), zInterval[1]);
+        if (!(tEnter <= tExit && tExit >= 0)) {
+            return BulletEntity.CollisionResult.NONE;
+        }
+        return new BulletEntity.CollisionResult(true, Math.max(0, tEnter));
+    }
+
+    static double[] referenceAxis(double pos, double vel, double min, double max) {
+        if (min <= pos && pos <= max) {
+            return new double[] {0, Double.POSITIVE_INFINITY};
+        }
+        if (Math.abs(vel) < 1.0e-9) {
+            return null;
+        }
+        double t1 = (min - pos) / vel;
+        double t2 = (max - pos) / vel;
+        return new double[] {Math.min(t1, t2), Math.max(t1, t2)};
+    }
+}
@@ -0,0 +1,251 @@
+package net.sistr.actionarms.entity.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import net.minecraft.util.math.Box;
+import net.minecraft.util.math.Vec3d;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class EntityRecordManagerTest {
+
+    EntityRecordManager manager;
+    EntityRecordManager.EntityRecord out;
+
+    @BeforeEach
+    void setUp() {
+        manager = new EntityRecordManager(10);
+        out = new EntityRecordManager.EntityRecord();
+    }
+
+    void recordAt(int id, double x) {
+        manager.record(id, x, 64, 0, x - 0.3, 64, -0.3, x + 0.3, 65.8, 0.3, 65.62);
+    }
+
+    @Nested
+    class 読み出し {
+        @Test
+        void 記録したtickの値を読める() {
+            manager.nextTick();
+            recordAt(1, 10);
+            assertTrue(manager.getRecord(1, 0, out));
+            assertEquals(10, out.posX());
+            assertEquals(9.7, out.minX());
+            assertEquals(10.3, out.maxX());
+            assertEquals(65.62, out.eyeY());
+        }
+
+        @Test
+        void 過去tickの値を読める() {
+            for (int i = 0; i < 6; i++) {
+                manager.nextTick();
+                recordAt(1, i);
+            }
+            assertTrue(manager.getRecord(1, 5, out));
+            assertEquals(0, out.posX());
+            assertTrue(manager.getRecord(1, 4, out));
+            assertEquals(1, out.posX());
+        }
+
+        @Test
+        void 未記録のIDは読めない() {
+            manager.nextTick();
+            recordAt(1, 0);
+            assertFalse(manager.getRecord(2, 0, out));
+        }
+
+        @Test
+        void 記録されなかったtickは読めない() {
+            manager.nextTick();
+            recordAt(1, 0);
+            manager.nextTick();
+            manager.nextTick();
+            recordAt(1, 2);
+            assertTrue(manager.getRecord(1, 0, out));
+            assertFalse(manager.getRecord(1, 1, out));
+            assertTrue(manager.getRecord(1, 2, out));
+        }
+
+        @Test
+        void 履歴長を超えた過去は読めない() {
+            for (int i = 0; i < 20; i++) {
+                manager.nextTick();
+                recordAt(1, i);
+            }
+            assertFalse(manager.getRecord(1, 10, out));
+            assertFalse(manager.getRecord(1, -1, out));
+        }
+
+        @Test
+        void 一周前の記録を今のtickとして読まない() {
+            manager.nextTick();
+            recordAt(1, 0);
+            for (int i = 0; i < 10; i++) {
+                manager.nextTick();
+            }
+            assertFalse(manager.getRecord(1, 0, out));
+        }
+    }
+
+    @Nested
+    class スロット管理 {
+        @Test
+        void 初期容量を超えて記録できる() {
+            manager.nextTick();
+            for (int id = 0; id < 1000; id++) {
+                recordAt(id, id);
+            }
+            for (int id = 0; id < 1000; id++) {
+                assertTrue(manager.getRecord(id, 0, out));
+                assertEquals(id, out.posX());
+            }
+        }
+
+        @Test
+        void 解放されたスロットを別のIDが使っても混ざらない() {
+            manager.nextTick();
+            recordAt(1, 1);
+            for (int i = 0; i < 30; i++) {
+                manager.nextTick();
+            }
+            recordAt(2, 2);
+            assertFalse(manager.getRecord(1, 0, out));
+            assertTrue(manager.getRecord(2, 0, out));
+            assertEquals(2, out.posX());
+        }
+    }
+
+    @Nested
+    class 補間 {
+        @Test
+        void 二つの記録の間を補間できる() {
+            var from = new EntityRecordManager.EntityRecord();
+            var to = new EntityRecordManager.EntityRecord();
+            manager.nextTick();
+            recordAt(1, 0);
+            manager.nextTick();
+            recordAt(1, 2);
+            manager.getRecord(1, 1, from);
+            manager.getRecord(1, 0, to);
+            out.lerp(from, to, 0.25);
+            assertEquals(0.5, out.posX());
+            assertEquals(0.2, out.minX(), 1.0e-9);
+        }
+
+        @Test
+        void 小数tick前の記録は前後を補間する() {
+            manager.nextTick();
+            recordAt(1, 0);
+            manager.nextTick();
+            recordAt(1, 4);
+            assertTrue(manager.getInterpolatedRecord(1, 0.25, out));
+            assertEquals(3, out.posX());
+            assertTrue(manager.getInterpolatedRecord(1, 1, out));
+            assertEquals(0, out.posX());
+        }
+
+        @Test
+        void 片方の記録しかなければそちらを使う() {
+            manager.nextTick();
+            recordAt(1, 0);
+            manager.nextTick();
+            manager.nextTick();
+            recordAt(1, 4);
+            assertTrue(manager.getInterpolatedRecord(1, 0.5, out));
+            assertEquals(4, out.posX());
+            assertTrue(manager.getInterpolatedRecord(1, 1.5, out));
+            assertEquals(0, out.posX());
+        }
+
+        @Test
+        void 履歴長は最低2tick() {
+            assertEquals(2, new EntityRecordManager(0).getHistoryLength());
+        }
+    }
+
+    @Nested
+    class 履歴の範囲 {
+        @Test
+        void 指定範囲の記録を全て囲む() {
+            for (int i = 0; i < 6; i++) {
+                manager.nextTick();
+                recordAt(1, i * 2);
+            }
+            assertTrue(manager.getHistoryBounds(1, 1, 3, out));
+            assertEquals(3.7, out.minX(), 1e-9);
+            assertEquals(8.3, out.maxX(), 1e-9);
+            assertEquals(64, out.minY());
+            assertEquals(65.8, out.maxY());
+        }
+
+        @Test
+        void 記録のないtickは飛ばす() {
+            manager.nextTick();
+            recordAt(1, 0);
+            manager.nextTick();
+            manager.nextTick();
+            recordAt(1, 10);
+            assertTrue(manager.getHistoryBounds(1, 0, 2, out));
+            assertEquals(-0.3, out.minX(), 1e-9);
+            assertEquals(10.3, out.maxX(), 1e-9);
+        }
+
+        @Test
+        void 範囲内に記録がなければ読めない() {
+            manager.nextTick();
+            recordAt(1, 0);
+            manager.nextTick();
+            assertFalse(manager.getHistoryBounds(1, 0, 0, out));
+            assertFalse(manager.getHistoryBounds(2, 0, 5, out));
+        }
+
+        @Test
+        void 履歴長を超える範囲は保持している分だけ見る() {
+            for (int i = 0; i < 12; i++) {
+                manager.nextTick();
+                recordAt(1, i);
+            }
+            assertTrue(manager.getHistoryBounds(1, 0, 100, out));
+            assertEquals(1.7, out.minX(), 1e-9);
+            assertEquals(11.3, out.maxX(), 1e-9);
+        }
+    }
+
+    @Nested
+    class 戦闘範囲 {
+        boolean covers(List<Box> boxes, double x, double y, double z) {
+            for (Box box : boxes) {
+                if (box.minX <= x && x < box.maxX
+                        && box.minY <= y && y < box.maxY
+                        && box.minZ <= z && z < box.maxZ) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Test
+        void 撃った者から半径より遠い弾丸の周囲も含む() {
+            var area = new InterestArea();
+            EntityRecordManager.addBulletInterest(area, 100, 64, 0, new Vec3d(0, 64, 0));
+            List<Box> boxes = new ArrayList<>();
+            area.forEachBox(64, boxes::add);
+            assertTrue(covers(boxes, 0, 64, 0));
+            assertTrue(covers(boxes, 100, 64, 0));
+            assertTrue(covers(boxes, 160, 64, 0));
+        }
+
+        @Test
+        void 撃った者がいなければ弾丸の周囲だけを含む() {
+            var area = new InterestArea();
+            EntityRecordManager.addBulletInterest(area, 100, 64, 0, null);
+            List<Box> boxes = new ArrayList<>();
+            area.forEachBox(64, boxes::add);
+            assertTrue(covers(boxes, 100, 64, 0));
+            assertFalse(covers(boxes, 0, 64, 0));
+        }
+    }
+}
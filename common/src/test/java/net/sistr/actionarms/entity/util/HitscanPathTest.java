@@ -0,0 +1,133 @@
+package net.sistr.actionarms.entity.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import net.minecraft.util.math.Vec3d;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class HitscanPathTest {
+
+    HitscanPath path;
+
+    @BeforeEach
+    void setUp() {
+        path = new HitscanPath(40);
+    }
+
+    /** x が wallX の位置に壁があり、x が loadedMaxX を超えると読み込まれていない。 */
+    static HitscanPath.Tracer world(double wallX, double loadedMaxX) {
+        return new HitscanPath.Tracer() {
+            @Override
+            public boolean isLoaded(double x, double y, double z) {
+                return x <= loadedMaxX;
+            }
+
+            @Override
+            public @Nullable Vec3d raycast(Vec3d start, Vec3d end) {
+                if (start.x < wallX && wallX <= end.x) {
+                    double t = (wallX - start.x) / (end.x - start.x);
+                    return new Vec3d(
+                            wallX,
+                            start.y + (end.y - start.y) * t,
+                            start.z + (end.z - start.z) * t);
+                }
+                return null;
+            }
+        };
+    }
+
+    @Nested
+    class 弾道 {
+        @Test
+        void 何も無ければ寿命まで進む() {
+            int segments = path.trace(world(1e9, 1e9), 0, 64, 0, 3, 0, 0);
+            assertEquals(40, segments);
+            assertEquals(40, path.size());
+        }
+
+        @Test
+        void 区間は通常の弾丸と同じ運動モデルで繋がる() {
+            path.trace(world(1e9, 1e9), 0, 64, 0, 3, 0, 0);
+            double x = 0;
+            double y = 64;
+            double vx = 3;
+            double vy = 0;
+            for (int k = 0; k < path.size(); k++) {
+                assertEquals(x, path.x(k));
+                assertEquals(y, path.y(k));
+                assertEquals(vx, path.velX(k));
+                assertEquals(vy, path.velY(k));
+                assertEquals(x + vx, path.endX(k));
+                assertEquals(y + vy, path.endY(k));
+                x += vx;
+                y += vy;
+                vx *= 0.99f;
+                vy = vy * 0.99f - 0.01f;
+            }
+        }
+
+        @Test
+        void 前の区間の終点から次の区間が始まる() {
+            path.trace(world(1e9, 1e9), 0, 64, 0, 3, 1, 0.5);
+            for (int k = 1; k < path.size(); k++) {
+                assertEquals(path.endX(k - 1), path.x(k), 1e-9);
+                assertEquals(path.endY(k - 1), path.y(k), 1e-9);
+                assertEquals(path.endZ(k - 1), path.z(k), 1e-9);
+            }
+        }
+
+        @Test
+        void ブロックに当たった区間で止まる() {
+            int segments = path.trace(world(10, 1e9), 0, 64, 0, 3, 0, 0);
+            // 0 -> 3 -> 5.97 -> 8.91 -> 11.8: 4区間目で壁に当たる
+            assertEquals(4, segments);
+            int last = segments - 1;
+            assertEquals(10, path.endX(last), 1e-9);
+            assertTrue(path.x(last) < 10);
+        }
+
+        @Test
+        void 読み込まれていない範囲に出たら止まる() {
+            int segments = path.trace(world(1e9, 7), 0, 64, 0, 3, 0, 0);
+            // 始点 0, 3, 5.97 は読み込まれており、8.91 は範囲外
+            assertEquals(3, segments);
+        }
+
+        @Test
+        void 始点が範囲外なら区間は無い() {
+            assertEquals(0, path.trace(world(1e9, -1), 0, 64, 0, 3, 0, 0));
+        }
+
+        @Test
+        void 使い回しても前の弾道は残らない() {
+            path.trace(world(1e9, 1e9), 0, 64, 0, 3, 0, 0);
+            assertEquals(4, path.trace(world(10, 1e9), 0, 64, 0, 3, 0, 0));
+            assertEquals(4, path.size());
+        }
+    }
+
+    @Nested
+    class 区間の巻き戻し {
+        @Test
+        void 区間ごとに1tickずつ減る() {
+            assertEquals(13, HitscanPath.segmentRewind(14, 0));
+            assertEquals(12, HitscanPath.segmentRewind(14, 1));
+            assertEquals(4, HitscanPath.segmentRewind(14, 9));
+        }
+
+        @Test
+        void 小数部分は保たれる() {
+            assertEquals(2.5, HitscanPath.segmentRewind(5.5, 2), 1e-12);
+        }
+
+        @Test
+        void 負にはならない() {
+            assertEquals(0, HitscanPath.segmentRewind(3, 3));
+            assertEquals(0, HitscanPath.segmentRewind(3, 30));
+            assertEquals(0, HitscanPath.segmentRewind(0, 0));
+        }
+    }
+}
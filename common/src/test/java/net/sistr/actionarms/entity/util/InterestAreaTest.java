@@ -0,0 +1,121 @@
+package net.sistr.actionarms.entity.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import net.minecraft.util.math.Box;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class InterestAreaTest {
+
+    InterestArea area;
+    List<Box> boxes;
+
+    @BeforeEach
+    void setUp() {
+        area = new InterestArea();
+        boxes = new ArrayList<>();
+    }
+
+    double volume() {
+        double sum = 0;
+        for (Box box : boxes) {
+            sum += (box.maxX - box.minX) * (box.maxY - box.minY) * (box.maxZ - box.minZ);
+        }
+        return sum;
+    }
+
+    boolean covers(double x, double y, double z) {
+        for (Box box : boxes) {
+            if (box.minX <= x && x < box.maxX
+                    && box.minY <= y && y < box.maxY
+                    && box.minZ <= z && z < box.maxZ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Nested
+    class まとめ方 {
+        @Test
+        void 中心が1つなら直方体は1つ() {
+            area.add(8, 64, 8);
+            area.forEachBox(32, boxes::add);
+            assertEquals(1, boxes.size());
+            var box = boxes.get(0);
+            assertEquals(-32, box.minX);
+            assertEquals(48, box.maxX);
+            assertEquals(32, box.minY);
+            assertEquals(112, box.maxY);
+        }
+
+        @Test
+        void 同じセクションの中心は1つにまとまる() {
+            for (int i = 0; i < 100; i++) {
+                area.add(1 + i * 0.1, 64, 1);
+            }
+            area.forEachBox(16, boxes::add);
+            assertEquals(1, boxes.size());
+            assertEquals(48 * 48 * 48, volume());
+        }
+
+        @Test
+        void 重なった範囲は一度しか返さない() {
+            area.add(8, 8, 8);
+            area.add(24, 8, 8);
+            area.forEachBox(16, boxes::add);
+            // x方向に1セクションずれた3x3x3が2つ: 和集合は4x3x3
+            assertEquals(4 * 3 * 3 * 16 * 16 * 16, volume());
+            assertEquals(1, boxes.size());
+        }
+
+        @Test
+        void 離れた範囲は別の直方体になる() {
+            area.add(8, 8, 8);
+            area.add(1000, 8, 8);
+            area.forEachBox(16, boxes::add);
+            assertEquals(2, boxes.size());
+            assertEquals(2 * 27 * 16 * 16 * 16, volume());
+        }
+
+        @Test
+        void 負の座標でも半径を覆う() {
+            area.add(-0.5, -30, -17);
+            area.forEachBox(20, boxes::add);
+            assertTrue(covers(-20.4, -30, -17));
+            assertTrue(covers(19.4, -49.9, 2.9));
+            assertTrue(covers(-0.5, -10.1, -36.9));
+        }
+
+        @Test
+        void L字に重なっても全体を覆う() {
+            area.add(8, 8, 8);
+            area.add(40, 8, 8);
+            area.add(8, 8, 40);
+            area.forEachBox(16, boxes::add);
+            // 重なりを除いた和集合: 5x3x3 + 3x3x3 - 重なり(3x3x1)
+            assertEquals((45 + 27 - 9) * 16 * 16 * 16, volume());
+            assertTrue(covers(-10, 8, 60));
+            assertTrue(covers(60, 8, -10));
+            assertFalse(covers(60, 8, 60));
+        }
+    }
+
+    @Test
+    void 中心が無ければ空() {
+        assertTrue(area.isEmpty());
+        area.forEachBox(16, boxes::add);
+        assertTrue(boxes.isEmpty());
+    }
+
+    @Test
+    void clearで中心を捨てる() {
+        area.add(0, 0, 0);
+        area.clear();
+        assertTrue(area.isEmpty());
+    }
+}
@@ -0,0 +1,154 @@
+package net.sistr.actionarms.hud;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.netty.buffer.Unpooled;
+import java.util.Collections;
+import java.util.List;
+import net.minecraft.network.PacketByteBuf;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class HudCodecTest {
+
+    static <T> PacketByteBuf write(HudCodec<T> codec, T prev, T state) {
+        var buf = new PacketByteBuf(Unpooled.buffer());
+        codec.write(buf, prev, state);
+        return buf;
+    }
+
+    @Nested
+    class レバーアクション {
+        static final HudCodec<LeverActionHudState> CODEC = LeverActionHudState.CODEC;
+
+        LeverActionHudState state(List<String> bullets, boolean inCartridge, String bullet) {
+            return new LeverActionHudState(
+                    new LeverActionHudState.MagazineContents(bullets),
+                    new LeverActionHudState.ChamberState(inCartridge, bullet));
+        }
+
+        @Test
+        void 前回が無ければ全ての項目を読み書きできる() {
+            var state = state(List.of("a", "a", "b"), true, "a");
+            var buf = write(CODEC, null, state);
+            assertEquals(state, CODEC.read(buf, null));
+            assertFalse(buf.isReadable());
+        }
+
+        @Test
+        void 前回が無く空なら空で読める() {
+            var state = state(List.of(), false, null);
+            var buf = write(CODEC, null, state);
+            assertEquals(state, CODEC.read(buf, null));
+            assertFalse(buf.isReadable());
+        }
+
+        @Test
+        void 変わらなければ先頭の1byteだけを書く() {
+            var state = state(List.of("a", "b"), true, "a");
+            var buf = write(CODEC, state, state);
+            assertEquals(1, buf.readableBytes());
+            assertEquals(state, CODEC.read(buf, state));
+        }
+
+        @Test
+        void 薬室の弾が前回と同じなら弾のIDを書かない() {
+            var prev = state(List.of("a"), true, "bullet");
+            var state = state(List.of(), true, "bullet");
+            var buf = write(CODEC, prev, state);
+            // 先頭 + 弾の塊の数(0)
+            assertEquals(2, buf.readableBytes());
+            assertEquals(state, CODEC.read(buf, prev));
+        }
+
+        @Test
+        void 薬室の弾が変われば弾のIDを書く() {
+            var prev = state(List.of(), true, "a");
+            var state = state(List.of(), true, "b");
+            assertEquals(state, CODEC.read(write(CODEC, prev, state), prev));
+        }
+
+        @Test
+        void 薬室の弾が無くなれば前回の弾を引き継がない() {
+            var prev = state(List.of(), true, "a");
+            var state = state(List.of(), true, null);
+            var buf = write(CODEC, prev, state);
+            assertEquals(1, buf.readableBytes());
+            assertEquals(state, CODEC.read(buf, prev));
+        }
+
+        @Test
+        void 同じ弾が続くマガジンはまとめて書く() {
+            var state = state(Collections.nCopies(10, "bullet"), false, null);
+            var buf = write(CODEC, null, state);
+            // 先頭 + 塊の数 + ID(長さ + 6byte) + 続く数
+            assertEquals(1 + 1 + 7 + 1, buf.readableBytes());
+            assertEquals(state, CODEC.read(buf, null));
+        }
+
+        @Test
+        void 種類が入れ替わるマガジンも順番どおりに読める() {
+            var state = state(List.of("a", "a", "b", "a", "c", "c"), false, null);
+            assertEquals(state, CODEC.read(write(CODEC, null, state), null));
+        }
+    }
+
+    @Nested
+    class SAA {
+        static final HudCodec<SAAHudState> CODEC = SAAHudState.CODEC;
+        static final List<SAAHudState.ChamberState> CHAMBERS =
+                List.of(
+                        SAAHudState.ChamberState.LOADED,
+                        SAAHudState.ChamberState.SPENT,
+                        SAAHudState.ChamberState.EMPTY);
+
+        @Test
+        void 前回が無ければ全ての項目を読み書きできる() {
+            var state = new SAAHudState(2, CHAMBERS, true, false);
+            var buf = write(CODEC, null, state);
+            assertEquals(state, CODEC.read(buf, null));
+            assertFalse(buf.isReadable());
+        }
+
+        @Test
+        void 変わらなければ先頭の1byteだけを書く() {
+            var state = new SAAHudState(1, CHAMBERS, false, true);
+            var buf = write(CODEC, state, state);
+            assertEquals(1, buf.readableBytes());
+            assertEquals(state, CODEC.read(buf, state));
+        }
+
+        @Test
+        void ゲートと撃鉄だけの変化は先頭の1byteで済む() {
+            var prev = new SAAHudState(1, CHAMBERS, false, false);
+            var state = new SAAHudState(1, CHAMBERS, true, true);
+            var buf = write(CODEC, prev, state);
+            assertEquals(1, buf.readableBytes());
+            assertEquals(state, CODEC.read(buf, prev));
+        }
+
+        @Test
+        void 書かなかった項目は前回の値を引き継ぐ() {
+            var prev = new SAAHudState(4, CHAMBERS, false, false);
+            var state =
+                    new SAAHudState(4, List.of(SAAHudState.ChamberState.EMPTY), false, false);
+            assertEquals(state, CODEC.read(write(CODEC, prev, state), prev));
+        }
+    }
+
+    @Nested
+    class 命中 {
+        static final HudCodec<BulletHitHudState> CODEC = BulletHitHudState.CODEC;
+
+        @Test
+        void 前回によらず全ての状態を読み書きできる() {
+            var prev = BulletHitHudState.of(BulletHitHudState.State.HIT);
+            for (BulletHitHudState.State value : BulletHitHudState.State.values()) {
+                var state = BulletHitHudState.of(value);
+                var buf = write(CODEC, prev, state);
+                assertEquals(1, buf.readableBytes());
+                assertEquals(state, CODEC.read(buf, null));
+            }
+        }
+    }
+}
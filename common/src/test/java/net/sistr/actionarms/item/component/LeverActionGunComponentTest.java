@@ -4,8 +4,10 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.function.BooleanSupplier;
 import java.util.function.Predicate;
+import net.minecraft.nbt.NbtCompound;
 import net.sistr.actionarms.item.data.BulletData;
 import net.sistr.actionarms.item.data.LeverActionGunData;
 import net.sistr.actionarms.item.data.MagazineData;
@@ -644,4 +646,61 @@ class LeverActionGunComponentTest {
             assertTrue(gun.getMagazine().isEmpty());
         }
     }
+
+    @Nested
+    class 書き戻し {
+        @Test
+        void 変わった項目だけを書く() {
+            gun.setHammerReady(true);
+            var nbt = new NbtCompound();
+            gun.writeChanges(nbt);
+            assertEquals(Set.of("hammerReady"), nbt.getKeys());
+        }
+
+        @Test
+        void タイマーだけが進んだら薬室とマガジンは書かない() {
+            gun.cycleLever(stubSoundContext, stubAnimationContext);
+            gun.writeChanges(new NbtCompound());
+            tick();
+            var nbt = new NbtCompound();
+            gun.writeChanges(nbt);
+            assertTrue(nbt.contains("phaseTimer"));
+            assertFalse(nbt.contains("ammo"));
+        }
+
+        @Test
+        void 薬室とマガジンの中身が変わると版が進む() {
+            int chamberVersion = gun.getChamber().getVersion();
+            int magazineVersion = gun.getMagazine().getVersion();
+            gun.getChamber().loadCartridge(new Cartridge(TEST_BULLET));
+            gun.getMagazine().addFirstBullet(TEST_BULLET);
+            assertNotEquals(chamberVersion, gun.getChamber().getVersion());
+            assertNotEquals(magazineVersion, gun.getMagazine().getVersion());
+        }
+
+        @Test
+        void 以前の形式で読んだら次の書き戻しで新しい形式に移す() {
+            var legacy = new NbtCompound();
+            legacy.put("chamber", new NbtCompound());
+            legacy.put("magazine", new NbtCompound());
+            gun.read(legacy);
+            var nbt = new NbtCompound();
+            gun.writeChanges(nbt);
+            assertTrue(nbt.contains("ammo"));
+            assertEquals(BulletPalette.FORMAT_VERSION, nbt.getCompound("ammo").getByte("v"));
+            var next = new NbtCompound();
+            gun.writeChanges(next);
+            assertFalse(next.contains("ammo"));
+        }
+
+        @Test
+        void 新しい形式で読んだら移さない() {
+            var nbt = new NbtCompound();
+            gun.write(nbt);
+            gun.read(nbt);
+            var changes = new NbtCompound();
+            gun.writeChanges(changes);
+            assertFalse(changes.contains("ammo"));
+        }
+    }
 }
@@ -0,0 +1,134 @@
+package net.sistr.actionarms.item.component;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import net.sistr.actionarms.item.data.BulletData;
+import net.sistr.actionarms.item.data.MagazineData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class MagazineComponentTest {
+
+    static final BulletData BULLET_A = new BulletData("bullet_a", 9f, 12f);
+    static final BulletData BULLET_B = new BulletData("bullet_b", 9f, 12f);
+    static final BulletData BULLET_C = new BulletData("bullet_c", 9f, 12f);
+    static final BulletData WRONG_BULLET = new BulletData("wrong_bullet", 9f, 12f);
+
+    static final MagazineData TEST_MAGAZINE_DATA =
+            new MagazineData("test_magazine", 3, bullet -> bullet != WRONG_BULLET);
+
+    MagazineComponent magazine;
+
+    @BeforeEach
+    void setUp() {
+        magazine = new MagazineComponent(TEST_MAGAZINE_DATA);
+    }
+
+    @Nested
+    class 出し入れ {
+        @Test
+        void 先頭と末尾の両方から出し入れできる() {
+            magazine.addLastBullet(BULLET_B);
+            magazine.addFirstBullet(BULLET_A);
+            magazine.addLastBullet(BULLET_C);
+
+            assertEquals(List.of(BULLET_A, BULLET_B, BULLET_C), magazine.getBullets());
+            assertEquals(BULLET_A, magazine.popFirstBullet().orElseThrow());
+            assertEquals(BULLET_C, magazine.popLastBullet().orElseThrow());
+            assertEquals(List.of(BULLET_B), magazine.getBullets());
+        }
+
+        @Test
+        void 容量を超えて込められない() {
+            assertTrue(magazine.addFirstBullet(BULLET_A));
+            assertTrue(magazine.addFirstBullet(BULLET_A));
+            assertTrue(magazine.addFirstBullet(BULLET_A));
+
+            assertTrue(magazine.isFull());
+            assertFalse(magazine.addFirstBullet(BULLET_A));
+            assertFalse(magazine.addLastBullet(BULLET_A));
+            assertEquals(3, magazine.size());
+        }
+
+        @Test
+        void 使えない弾は込められない() {
+            assertFalse(magazine.addLastBullet(WRONG_BULLET));
+            assertTrue(magazine.isEmpty());
+        }
+
+        @Test
+        void 配列の端をまたいでも順番が崩れない() {
+            // 先頭を何度も入れ替えて、配列の端をまたがせる
+            for (int i = 0; i < 5; i++) {
+                magazine.addLastBullet(BULLET_A);
+                magazine.addLastBullet(BULLET_B);
+                magazine.popFirstBullet();
+                magazine.popFirstBullet();
+            }
+            magazine.addLastBullet(BULLET_A);
+            magazine.addLastBullet(BULLET_B);
+            magazine.addFirstBullet(BULLET_C);
+
+            assertEquals(List.of(BULLET_C, BULLET_A, BULLET_B), magazine.getBullets());
+            assertEquals(BULLET_C, magazine.getFirstBullet().orElseThrow());
+            assertEquals(BULLET_B, magazine.getLastBullet().orElseThrow());
+        }
+
+        @Test
+        void 空なら取り出せない() {
+            assertTrue(magazine.popFirstBullet().isEmpty());
+            assertTrue(magazine.popLastBullet().isEmpty());
+            assertTrue(magazine.getFirstBullet().isEmpty());
+        }
+    }
+
+    @Nested
+    class まとめて込める {
+        @Test
+        void 先頭側にリストの並びのまま込める() {
+            magazine.addLastBullet(BULLET_C);
+
+            magazine.addFirstBullets(List.of(BULLET_A, BULLET_B), false);
+
+            assertEquals(List.of(BULLET_A, BULLET_B, BULLET_C), magazine.getBullets());
+        }
+
+        @Test
+        void 先頭側に逆順で込める() {
+            magazine.addLastBullet(BULLET_C);
+
+            magazine.addFirstBullets(List.of(BULLET_A, BULLET_B), true);
+
+            assertEquals(List.of(BULLET_B, BULLET_A, BULLET_C), magazine.getBullets());
+        }
+
+        @Test
+        void 末尾側に込める() {
+            magazine.addLastBullet(BULLET_C);
+
+            magazine.addLastBullets(List.of(BULLET_A, BULLET_B), false);
+
+            assertEquals(List.of(BULLET_C, BULLET_A, BULLET_B), magazine.getBullets());
+        }
+
+        @Test
+        void 使えない弾は返される() {
+            var rest = magazine.addLastBullets(List.of(BULLET_A, WRONG_BULLET, BULLET_B), false);
+
+            assertEquals(List.of(WRONG_BULLET), rest);
+            assertEquals(List.of(BULLET_A, BULLET_B), magazine.getBullets());
+        }
+
+        @Test
+        void 入りきらなければ一発も込めない() {
+            magazine.addLastBullet(BULLET_C);
+            magazine.addLastBullet(BULLET_C);
+
+            magazine.addLastBullets(List.of(BULLET_A, BULLET_B), false);
+
+            assertEquals(List.of(BULLET_C, BULLET_C), magazine.getBullets());
+        }
+    }
+}
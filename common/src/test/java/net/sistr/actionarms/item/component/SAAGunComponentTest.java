@@ -4,9 +4,11 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.ArrayList;
 import java.util.List;
+import net.minecraft.nbt.NbtCompound;
 import net.sistr.actionarms.item.data.BulletData;
 import net.sistr.actionarms.item.data.SAAGunData;
 import net.sistr.actionarms.item.util.AnimationContext;
+import net.sistr.actionarms.item.util.BulletPalette;
 import net.sistr.actionarms.item.util.Cartridge;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
@@ -406,4 +408,44 @@ class SAAGunComponentTest {
             assertEquals(CYLINDER_CAPACITY, firedBullets.size());
         }
     }
+
+    @Nested
+    class 書き戻し {
+        @Test
+        void タイマーだけが進んだらシリンダーは書かない() {
+            gun.cockHammer(stubSoundContext, stubAnimationContext);
+            var first = new NbtCompound();
+            gun.writeChanges(first);
+            assertTrue(first.contains("cylinder"));
+            tick();
+            var nbt = new NbtCompound();
+            gun.writeChanges(nbt);
+            assertTrue(nbt.contains("phaseTimer"));
+            assertFalse(nbt.contains("cylinder"));
+        }
+
+        @Test
+        void 以前の形式で読んだら次の書き戻しで新しい形式に移す() {
+            var legacy = new NbtCompound();
+            legacy.put("cylinder", new NbtCompound());
+            gun.read(legacy);
+            var nbt = new NbtCompound();
+            gun.writeChanges(nbt);
+            assertTrue(nbt.contains("cylinder"));
+            assertEquals(BulletPalette.FORMAT_VERSION, nbt.getCompound("cylinder").getByte("v"));
+            var next = new NbtCompound();
+            gun.writeChanges(next);
+            assertFalse(next.contains("cylinder"));
+        }
+
+        @Test
+        void 新しい形式で読んだら移さない() {
+            var nbt = new NbtCompound();
+            gun.write(nbt);
+            gun.read(nbt);
+            var changes = new NbtCompound();
+            gun.writeChanges(changes);
+            assertFalse(changes.contains("cylinder"));
+        }
+    }
 }
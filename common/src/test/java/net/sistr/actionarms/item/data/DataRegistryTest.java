@@ -0,0 +1,55 @@
+package net.sistr.actionarms.item.data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class DataRegistryTest {
+
+    static final BulletData BULLET_A = new BulletData("bullet_a", 9f, 12f);
+    static final BulletData BULLET_B = new BulletData("bullet_b", 5f, 8f);
+
+    DataRegistry<BulletData> registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new DataRegistry<>();
+    }
+
+    @Nested
+    class 登録 {
+        @Test
+        void 登録順に返す() {
+            registry.register(BULLET_A);
+            registry.register(BULLET_B);
+            assertEquals(2, registry.size());
+            assertIterableEquals(List.of(BULLET_A, BULLET_B), registry.values());
+        }
+
+        @Test
+        void 同じIDは登録できない() {
+            registry.register(BULLET_A);
+            assertThrows(
+                    IllegalStateException.class,
+                    () -> registry.register(new BulletData("bullet_a", 1f, 1f)));
+        }
+    }
+
+    @Nested
+    class 参照 {
+        @BeforeEach
+        void setUp() {
+            registry.register(BULLET_A);
+            registry.register(BULLET_B);
+        }
+
+        @Test
+        void 文字列IDから引ける() {
+            assertSame(BULLET_B, registry.getById("bullet_b").orElseThrow());
+            assertTrue(registry.getById("bullet_c").isEmpty());
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package net.sistr.actionarms.item.data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class DataSnapshotTest {
+
+    static final BulletData BULLET_A = new BulletData("bullet_a", 9f, 12f);
+    static final BulletData BULLET_B = new BulletData("bullet_b", 5f, 8f);
+
+    @Test
+    void 同じIDを追加すると順番を保ったまま置き換わる() {
+        var override = new BulletData("bullet_a", 20f, 30f);
+        var snapshot =
+                DataSnapshot.builder()
+                        .add(BulletData.class, BULLET_A)
+                        .add(BulletData.class, BULLET_B)
+                        .add(BulletData.class, override)
+                        .build();
+
+        var bullets = snapshot.get(BulletData.class);
+        assertNotNull(bullets);
+        assertIterableEquals(List.of(override, BULLET_B), bullets.values());
+    }
+
+    @Test
+    void 作った後のレジストリには登録できない() {
+        var snapshot = DataSnapshot.builder().add(BulletData.class, BULLET_A).build();
+
+        assertThrows(
+                IllegalStateException.class,
+                () -> snapshot.get(BulletData.class).register(BULLET_B));
+    }
+
+    @Test
+    void 追加していない種類はnull() {
+        var snapshot = DataSnapshot.builder().add(BulletData.class, BULLET_A).build();
+
+        assertNull(snapshot.get(SAAGunData.class));
+    }
+
+    @Test
+    void スナップショットごとに世代が変わる() {
+        var first = DataSnapshot.builder().build();
+        var second = DataSnapshot.builder().build();
+
+        assertNotEquals(first.getGeneration(), second.getGeneration());
+    }
+}
@@ -0,0 +1,82 @@
+package net.sistr.actionarms.item.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Optional;
+import net.minecraft.nbt.NbtList;
+import net.sistr.actionarms.item.data.BulletData;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class BulletPaletteTest {
+
+    static final BulletData BULLET_A = new BulletData("bullet_a", 9f, 12f);
+    static final BulletData BULLET_B = new BulletData("bullet_b", 5f, 8f);
+
+    static BulletPalette reread(BulletPalette palette) {
+        return BulletPalette.read(
+                palette.write(),
+                id ->
+                        switch (id) {
+                            case "bullet_a" -> Optional.of(BULLET_A);
+                            case "bullet_b" -> Optional.of(BULLET_B);
+                            default -> Optional.empty();
+                        });
+    }
+
+    @Nested
+    class 符号化 {
+        @Test
+        void 同じ弾は同じ番号になる() {
+            var palette = new BulletPalette();
+            byte a = palette.encode(BULLET_A);
+            byte b = palette.encode(BULLET_B);
+            assertEquals(a, palette.encode(BULLET_A));
+            assertNotEquals(a, b);
+            assertEquals(2, palette.write().size());
+        }
+
+        @Test
+        void 空と空薬莢は一覧に載らない() {
+            var palette = new BulletPalette();
+            assertEquals(BulletPalette.EMPTY, palette.encode((Cartridge) null));
+            assertEquals(BulletPalette.SPENT, palette.encode(new Cartridge(null)));
+            assertEquals(0, palette.write().size());
+        }
+    }
+
+    @Nested
+    class 復号 {
+        @Test
+        void 書いて読み直すと同じ弾になる() {
+            var palette = new BulletPalette();
+            byte a = palette.encode(BULLET_A);
+            byte b = palette.encode(BULLET_B);
+            var read = reread(palette);
+            assertSame(BULLET_A, read.decodeBullet(a));
+            assertSame(BULLET_B, read.decodeBullet(b));
+            assertSame(BULLET_B, read.decodeCartridge(b).getBullet().orElseThrow());
+        }
+
+        @Test
+        void 空と空薬莢を区別する() {
+            var palette = new BulletPalette();
+            assertNull(palette.decodeCartridge((byte) BulletPalette.EMPTY));
+            var spent = palette.decodeCartridge((byte) BulletPalette.SPENT);
+            assertNotNull(spent);
+            assertFalse(spent.canShoot());
+            assertNull(palette.decodeBullet((byte) BulletPalette.SPENT));
+        }
+
+        @Test
+        void 見つからない弾は空薬莢になる() {
+            var list = new NbtList();
+            var palette = new BulletPalette();
+            byte code = palette.encode(new BulletData("removed_bullet", 1f, 1f));
+            list.addAll(palette.write());
+            var read = BulletPalette.read(list, id -> Optional.empty());
+            assertNull(read.decodeBullet(code));
+            assertFalse(read.decodeCartridge(code).canShoot());
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package net.sistr.actionarms.network;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import net.minecraft.network.PacketByteBuf;
+import net.sistr.actionarms.entity.util.KeyInputManager;
+import net.sistr.actionarms.hud.BulletHitHudState;
+import net.sistr.actionarms.hud.HudType;
+import net.sistr.actionarms.hud.LeverActionHudState;
+import net.sistr.actionarms.hud.SAAHudState;
+
+/**
+ * パケットの種類ごとに、書き込みと読み込みにかかる時間を測る。
+ *
+ * <p>テストとしては実行されない。{@link #main} を直接実行し、結果を標準出力に出す。
+ */
+public class PacketCodecBenchmark {
+    private static final int WARMUP = 200_000;
+    private static final int ITERATIONS = 2_000_000;
+    private static final String BULLET = "medium_caliber_bullet";
+    // 測っている処理が消されないよう、結果を流し込む
+    private static volatile long sink;
+
+    public static void main(String[] args) {
+        Map<KeyInputManager.Key, Boolean> keys = new EnumMap<>(KeyInputManager.Key.class);
+        keys.put(KeyInputManager.Key.FIRE, true);
+        keys.put(KeyInputManager.Key.AIM, false);
+        run(
+                "key_input",
+                () -> KeyInputPacket.createC2SPacket(keys),
+                buf -> sink += buf.readUnsignedByte() + buf.readUnsignedByte());
+        run(
+                "aim",
+                () -> AimPacket.createC2SPacket(true),
+                buf -> sink += buf.readBoolean() ? 1 : 0);
+        run("recoil", RecoilPacket::createS2CPacket, buf -> sink += buf.readableBytes());
+
+        var leverPrev =
+                new LeverActionHudState(
+                        new LeverActionHudState.MagazineContents(Collections.nCopies(9, BULLET)),
+                        new LeverActionHudState.ChamberState(true, BULLET));
+        var leverState =
+                new LeverActionHudState(
+                        new LeverActionHudState.MagazineContents(Collections.nCopies(8, BULLET)),
+                        new LeverActionHudState.ChamberState(true, BULLET));
+        runHud("hud_update/lever_action", HudType.LEVER_ACTION, leverPrev, leverState);
+        var chambers =
+                List.of(
+                        SAAHudState.ChamberState.SPENT,
+                        SAAHudState.ChamberState.LOADED,
+                        SAAHudState.ChamberState.LOADED,
+                        SAAHudState.ChamberState.LOADED,
+                        SAAHudState.ChamberState.LOADED,
+                        SAAHudState.ChamberState.EMPTY);
+        runHud(
+                "hud_update/saa",
+                HudType.SAA,
+                new SAAHudState(0, chambers, false, true),
+                new SAAHudState(1, chambers, false, false));
+        runHud(
+                "hud_update/bullet_hit",
+                HudType.BULLET_HIT,
+                null,
+                BulletHitHudState.of(BulletHitHudState.State.HEADSHOT));
+
+        var uuid = UUID.randomUUID();
+        run(
+                "animation",
+                () -> {
+                    var buf = PacketBuffers.growable(64);
+                    ReplicationPacket.writeAnimation(buf, uuid, "fire", 0.25f);
+                    return buf;
+                },
+                buf -> {
+                    buf.readVarInt();
+                    sink += buf.readUuid().hashCode() + buf.readString().length();
+                    sink += Float.floatToIntBits(buf.readFloat());
+                });
+    }
+
+    private static <T> void runHud(String name, HudType<T> type, T prev, T state) {
+        run(
+                name,
+                () -> {
+                    var buf = PacketBuffers.growable(64);
+                    ReplicationPacket.writeUpdate(buf, 1, type, prev, state);
+                    return buf;
+                },
+                buf -> {
+                    buf.readVarInt();
+                    sink += type.getCodec().read(buf, prev).hashCode();
+                });
+    }
+
+    private static void run(
+            String name, Supplier<PacketByteBuf> encoder, Consumer<PacketByteBuf> decoder) {
+        var encoded = encoder.get();
+        int size = encoded.readableBytes();
+        for (int i = 0; i < WARMUP; i++) {
+            sink += encoder.get().writerIndex();
+            encoded.readerIndex(0);
+            decoder.accept(encoded);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += encoder.get().writerIndex();
+        }
+        long encodeNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            encoded.readerIndex(0);
+            decoder.accept(encoded);
+        }
+        long decodeNanos = System.nanoTime() - start;
+
+        System.out.printf(
+                "%-24s %3d bytes  encode %7.1f ns/op  decode %7.1f ns/op%n",
+                name,
+                size,
+                (double) encodeNanos / ITERATIONS,
+                (double) decodeNanos / ITERATIONS);
+    }
+}